@@ -0,0 +1,60 @@
+package com.github.sbouclier.javarestbooks.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * BookController read paths through MockMvc: routing, controller, repository, H2 and JSON serialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class BookControllerBenchmark {
+
+    @Param({ "20", "50" })
+    public int pageSize;
+
+    @Benchmark
+    public MvcResult getBook(CatalogState catalog, Picker picker) throws Exception {
+        return catalog.mockMvc.perform(get("/api/books/{isbn}", catalog.isbn(picker.next(catalog.catalogSize))))
+                .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getUnknownBook(CatalogState catalog, Picker picker) throws Exception {
+        return catalog.mockMvc.perform(get("/api/books/{isbn}", catalog.isbn(picker.next(catalog.catalogSize))
+                .replace("979-", "978-")))
+                .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAllBooks(CatalogState catalog, Picker picker) throws Exception {
+        final int page = picker.next(Math.max(1, catalog.catalogSize / pageSize));
+        return catalog.mockMvc.perform(get("/api/books").param("page", String.valueOf(page))
+                .param("size", String.valueOf(pageSize)))
+                .andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAllBooksFirstPageByCursor(CatalogState catalog) throws Exception {
+        return catalog.mockMvc.perform(get("/api/books").param("after", "")
+                .param("size", String.valueOf(pageSize)))
+                .andReturn();
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.sbouclier.javarestbooks.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.sbouclier.javarestbooks.catalog.CatalogGenerator;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Book JSON serialization and deserialization, alone and as a page of books
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class BookJsonBenchmark {
+
+    @Param({ "20", "50" })
+    public int pageSize;
+
+    private ObjectWriter bookWriter;
+
+    private ObjectReader bookReader;
+
+    private ObjectWriter pageWriter;
+
+    private Book book;
+
+    private byte[] bookJson;
+
+    private List<Book> page;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // same defaults as the MVC message converter
+        final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        bookWriter = objectMapper.writerFor(Book.class);
+        bookReader = objectMapper.readerFor(Book.class);
+        pageWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, Book.class));
+
+        final CatalogGenerator generator = new CatalogGenerator();
+        book = generator.next();
+        bookJson = bookWriter.writeValueAsBytes(book);
+        page = generator.next(pageSize);
+    }
+
+    @Benchmark
+    public byte[] serializeBook() throws IOException {
+        return bookWriter.writeValueAsBytes(book);
+    }
+
+    @Benchmark
+    public Book deserializeBook() throws IOException {
+        return bookReader.readValue(bookJson);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+}
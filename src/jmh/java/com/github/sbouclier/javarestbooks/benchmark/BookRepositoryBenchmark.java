@@ -0,0 +1,36 @@
+package com.github.sbouclier.javarestbooks.benchmark;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BookRepository lookups against H2, without the book cache
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class BookRepositoryBenchmark {
+
+    @Benchmark
+    public Optional<Book> findByIsbn(CatalogState catalog, Picker picker) {
+        return catalog.bookRepository.findByIsbn(catalog.isbn(picker.next(catalog.catalogSize)));
+    }
+
+    @Benchmark
+    public Optional<Book> findByIsbnKey(CatalogState catalog, Picker picker) {
+        final long isbnKey = Isbn.toKey(catalog.isbn(picker.next(catalog.catalogSize)));
+        return catalog.bookRepository.findByIsbnKey(isbnKey);
+    }
+}
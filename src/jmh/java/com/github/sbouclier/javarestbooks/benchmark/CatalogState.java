@@ -0,0 +1,68 @@
+package com.github.sbouclier.javarestbooks.benchmark;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.cache.IsbnFilter;
+import com.github.sbouclier.javarestbooks.catalog.CatalogGenerator;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.search.BookFacets;
+import com.github.sbouclier.javarestbooks.search.BookSearchIndex;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+/**
+ * Application started against H2 with a generated catalog of {@code catalogSize} books, shared by all threads
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    private static final int INSERT_CHUNK_SIZE = 1000;
+
+    @Param({ "1000", "100000" })
+    public int catalogSize;
+
+    public ConfigurableApplicationContext context;
+
+    public BookRepository bookRepository;
+
+    public MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(JavaRestBooksApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run();
+        bookRepository = context.getBean(BookRepository.class);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        final CatalogGenerator generator = new CatalogGenerator();
+        for (int inserted = 0; inserted < catalogSize; inserted += INSERT_CHUNK_SIZE) {
+            bookRepository.insertAll(generator.next(Math.min(INSERT_CHUNK_SIZE, catalogSize - inserted)));
+        }
+
+        // in-memory structures were built at startup, before the catalog was generated
+        context.getBean(IsbnFilter.class).load();
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(BookFacets.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * ISBN of a generated book
+     */
+    public String isbn(int n) {
+        return CatalogGenerator.isbn(n % catalogSize);
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.sbouclier.javarestbooks.benchmark;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.cache.IsbnFilter;
+import com.github.sbouclier.javarestbooks.catalog.CatalogGenerator;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of real HTTP requests at high concurrency, with the default Tomcat
+ * thread pool and with the elastic execution mode.
+ *
+ * Run it alone: mvn -P benchmark verify -Djmh.includes=ExecutionModeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(512)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-Dhttp.maxConnections=1024" })
+public class ExecutionModeBenchmark {
+
+    private static final int CATALOG_SIZE = 10000;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({ "default", "elastic" })
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+
+    private String baseUrl;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(JavaRestBooksApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN", "books.execution.mode=" + mode)
+                .run();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+
+        final BookRepository bookRepository = context.getBean(BookRepository.class);
+        final CatalogGenerator generator = new CatalogGenerator();
+        for (int inserted = 0; inserted < CATALOG_SIZE; inserted += 1000) {
+            bookRepository.insertAll(generator.next(1000));
+        }
+        context.getBean(IsbnFilter.class).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getBook(Picker picker) throws IOException {
+        return get("/api/books/" + CatalogGenerator.isbn(picker.next(CATALOG_SIZE)));
+    }
+
+    @Benchmark
+    public int getAllBooks(Picker picker) throws IOException {
+        return get("/api/books?page=" + picker.next(CATALOG_SIZE / PAGE_SIZE) + "&size=" + PAGE_SIZE);
+    }
+
+    /**
+     * @return the status, the body is read fully so that the connection is kept alive
+     */
+    private int get(String path) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestProperty("Accept", "application/json");
+        final int status = connection.getResponseCode();
+        final InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (body != null) {
+            try (InputStream in = body) {
+                final byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    // drain
+                }
+            }
+        }
+        return status;
+    }
+}
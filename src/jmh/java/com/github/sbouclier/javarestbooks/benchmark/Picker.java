@@ -0,0 +1,20 @@
+package com.github.sbouclier.javarestbooks.benchmark;
+
+import com.github.sbouclier.javarestbooks.catalog.CatalogGenerator;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Seeded random numbers per benchmark thread, every run picks the same books in the same order
+ */
+@State(Scope.Thread)
+public class Picker {
+
+    private final Random random = new Random(CatalogGenerator.DEFAULT_SEED);
+
+    public int next(int bound) {
+        return random.nextInt(bound);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.repository.BookCursor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Link headers of BookController pages, it lives in the controller package to reach the link builders
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BookLinkBenchmark {
+
+    @Param({ "20", "50" })
+    public int pageSize;
+
+    private Page<Book> page;
+
+    private BookCursor cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        page = new PageImpl<>(Collections.emptyList(), PageRequest.of(10, pageSize), 100000);
+
+        final Book book = new Book("978-0321356680", "Effective Java", "Addison Wesley");
+        book.setId(1L);
+        cursor = BookCursor.first("title", Sort.Direction.ASC).after(book);
+    }
+
+    @Benchmark
+    public String pageUri() {
+        return BookController.buildPageUri(page.getPageable());
+    }
+
+    @Benchmark
+    public String cursorUri() {
+        return BookController.buildCursorUri(cursor, pageSize);
+    }
+
+    /**
+     * All the link headers of a page in the middle of the catalog, as getAllBooks builds them
+     */
+    @Benchmark
+    public HttpHeaders pageHeaders() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Total-Count", String.valueOf(page.getTotalElements()));
+        headers.add("first", BookController.buildPageUri(PageRequest.of(0, page.getSize())));
+        headers.add("last", BookController.buildPageUri(PageRequest.of(page.getTotalPages() - 1, page.getSize())));
+        headers.add("next", BookController.buildPageUri(page.nextPageable()));
+        headers.add("prev", BookController.buildPageUri(page.previousPageable()));
+        return headers;
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.sbouclier.javarestbooks.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal HTTP client on HttpURLConnection: bodies are always read fully so that connections are kept alive
+ * and reused, like those of a real client pool.
+ */
+class HttpClient {
+
+    private final String baseUrl;
+
+    HttpClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * @return the response status
+     */
+    int request(String method, String path, String contentType, String body) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept", "application/json");
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", contentType);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        final int status = connection.getResponseCode();
+        final InputStream response = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (response != null) {
+            try (InputStream in = response) {
+                final byte[] buffer = new byte[8192];
+                while (in.read(buffer) != -1) {
+                    // drain
+                }
+            }
+        }
+        return status;
+    }
+}
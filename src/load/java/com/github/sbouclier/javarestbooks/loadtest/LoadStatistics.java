@@ -0,0 +1,98 @@
+package com.github.sbouclier.javarestbooks.loadtest;
+
+import com.github.sbouclier.javarestbooks.metrics.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and statuses of the requests of each operation, recorded concurrently by the load test threads
+ */
+class LoadStatistics {
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private static final String[] QUANTILE_NAMES = { "p50", "p90", "p99", "p999" };
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+
+    private final Map<Operation, ConcurrentMap<String, LongAdder>> statuses = new EnumMap<>(Operation.class);
+
+    LoadStatistics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            statuses.put(operation, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @param status response status, 0 when the request failed without one
+     */
+    void record(Operation operation, long nanos, int status) {
+        latencies.get(operation).record(nanos);
+        statuses.get(operation).computeIfAbsent(String.valueOf(status), s -> new LongAdder()).increment();
+    }
+
+    /**
+     * Report of every operation that was run, as nested maps ready to be written as JSON
+     */
+    Map<String, Object> report(double elapsedSeconds) {
+        final Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            final LatencyHistogram.Snapshot latency = latencies.get(operation).snapshot();
+            if (latency.getCount() == 0) {
+                continue;
+            }
+
+            final Map<String, Long> statusCounts = new TreeMap<>();
+            long errors = 0;
+            for (Map.Entry<String, LongAdder> status : statuses.get(operation).entrySet()) {
+                final long count = status.getValue().sum();
+                statusCounts.put(status.getKey(), count);
+                if (isError(Integer.parseInt(status.getKey()))) {
+                    errors += count;
+                }
+            }
+
+            final Map<String, Object> latencyMillis = new LinkedHashMap<>();
+            latencyMillis.put("mean", latency.getMeanSeconds() * 1000);
+            for (int i = 0; i < QUANTILES.length; i++) {
+                latencyMillis.put(QUANTILE_NAMES[i], latency.getQuantileSeconds(QUANTILES[i]) * 1000);
+            }
+
+            final Map<String, Object> report = new LinkedHashMap<>();
+            report.put("requests", latency.getCount());
+            report.put("throughput", latency.getCount() / elapsedSeconds);
+            report.put("errors", errors);
+            report.put("statuses", statusCounts);
+            report.put("latencyMillis", latencyMillis);
+            operations.put(operation.name(), report);
+        }
+        return operations;
+    }
+
+    long totalRequests() {
+        return latencies.values().stream().mapToLong(latency -> latency.snapshot().getCount()).sum();
+    }
+
+    long totalErrors() {
+        long errors = 0;
+        for (ConcurrentMap<String, LongAdder> operationStatuses : statuses.values()) {
+            for (Map.Entry<String, LongAdder> status : operationStatuses.entrySet()) {
+                if (isError(Integer.parseInt(status.getKey()))) {
+                    errors += status.getValue().sum();
+                }
+            }
+        }
+        return errors;
+    }
+
+    private static boolean isError(int status) {
+        return status == 0 || status >= 400;
+    }
+}
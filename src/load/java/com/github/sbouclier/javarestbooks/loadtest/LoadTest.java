@@ -0,0 +1,189 @@
+package com.github.sbouclier.javarestbooks.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.cache.BookCounter;
+import com.github.sbouclier.javarestbooks.cache.CatalogRevision;
+import com.github.sbouclier.javarestbooks.cache.IsbnFilter;
+import com.github.sbouclier.javarestbooks.catalog.CatalogGenerator;
+import com.github.sbouclier.javarestbooks.catalog.CatalogWriter;
+import com.github.sbouclier.javarestbooks.search.BookFacets;
+import com.github.sbouclier.javarestbooks.search.BookSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: start the application on a local port, write a generated catalog, run a mixed workload
+ * over real HTTP connections and write throughput and latency percentiles of every operation as JSON.
+ *
+ * Every argument is passed to the application (--books.execution.mode=elastic, --spring.datasource.url=...),
+ * the load test reads its own settings from the loadtest.* properties:
+ * <ul>
+ * <li>loadtest.catalog-size: generated books (10000)</li>
+ * <li>loadtest.threads: concurrent clients (32)</li>
+ * <li>loadtest.warmup-seconds: run before measuring (10)</li>
+ * <li>loadtest.duration-seconds: measured run (60)</li>
+ * <li>loadtest.mix: read-heavy, write-heavy or weights such as GET_BOOK=90,PATCH_BOOK=10 (read-heavy)</li>
+ * <li>loadtest.page-size: books per page of GET_ALL_BOOKS (50)</li>
+ * <li>loadtest.seed: seed of the catalog and of the clients (42)</li>
+ * <li>loadtest.report: JSON report file (target/load-test-report.json)</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private final ConfigurableApplicationContext context;
+
+    private final int catalogSize;
+
+    private final int threads;
+
+    private final int warmupSeconds;
+
+    private final int durationSeconds;
+
+    private final String mixName;
+
+    private final WorkloadMix mix;
+
+    private final int pageSize;
+
+    private final long seed;
+
+    private final File reportFile;
+
+    private volatile LoadStatistics statistics = new LoadStatistics();
+
+    private volatile boolean running = true;
+
+    private LoadTest(ConfigurableApplicationContext context) {
+        final Environment environment = context.getEnvironment();
+        this.context = context;
+        this.catalogSize = environment.getProperty("loadtest.catalog-size", Integer.class, 10000);
+        this.threads = environment.getProperty("loadtest.threads", Integer.class, 32);
+        this.warmupSeconds = environment.getProperty("loadtest.warmup-seconds", Integer.class, 10);
+        this.durationSeconds = environment.getProperty("loadtest.duration-seconds", Integer.class, 60);
+        this.mixName = environment.getProperty("loadtest.mix", "read-heavy");
+        this.mix = WorkloadMix.parse(mixName);
+        this.pageSize = environment.getProperty("loadtest.page-size", Integer.class, 50);
+        this.seed = environment.getProperty("loadtest.seed", Long.class, CatalogGenerator.DEFAULT_SEED);
+        this.reportFile = new File(environment.getProperty("loadtest.report", "target/load-test-report.json"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        final ConfigurableApplicationContext context = new SpringApplicationBuilder(JavaRestBooksApplication.class)
+                .properties("server.port=0", "logging.level.root=WARN")
+                .run(args);
+        try {
+            new LoadTest(context).run();
+        } finally {
+            context.close();
+        }
+    }
+
+    private void run() throws Exception {
+        writeCatalog();
+
+        final HttpClient client = new HttpClient("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+        final ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        final List<Thread> clients = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final Operation.Context clientContext = new Operation.Context(objectMapper, new Random(seed + i), pageSize);
+            final Thread thread = new Thread(() -> runClient(client, clientContext), "load-test-" + i);
+            thread.setDaemon(true);
+            clients.add(thread);
+            thread.start();
+        }
+
+        log("warming up %d clients for %d s", threads, warmupSeconds);
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+        statistics = new LoadStatistics();
+        final long start = System.nanoTime();
+
+        log("measuring %s workload for %d s", mixName, durationSeconds);
+        TimeUnit.SECONDS.sleep(durationSeconds);
+        final LoadStatistics measured = statistics;
+        final double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        running = false;
+        for (Thread thread : clients) {
+            thread.join();
+        }
+
+        writeReport(measured, elapsedSeconds, objectMapper);
+    }
+
+    /**
+     * Generated books are written with JDBC, in-memory structures built at startup are rebuilt afterwards
+     */
+    private void writeCatalog() {
+        log("writing %d books", catalogSize);
+        final long start = System.nanoTime();
+        new CatalogWriter(context.getBean(JdbcTemplate.class)).write(new CatalogGenerator(seed), catalogSize);
+        context.getBean(IsbnFilter.class).load();
+        context.getBean(BookSearchIndex.class).rebuild();
+        context.getBean(BookFacets.class).rebuild();
+        context.getBean(BookCounter.class).reconcile();
+        context.getBean(CatalogRevision.class).increment();
+        log("catalog written in %d ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void runClient(HttpClient client, Operation.Context clientContext) {
+        while (running) {
+            final Operation operation = mix.next(clientContext.random);
+            final int book = clientContext.random.nextInt(catalogSize);
+            final int status = execute(client, clientContext, operation, book);
+
+            // the deleted book is created again so that the catalog keeps its size
+            if (operation == Operation.DELETE_BOOK && status == 204) {
+                execute(client, clientContext, Operation.CREATE_BOOK, book);
+            }
+        }
+    }
+
+    private int execute(HttpClient client, Operation.Context clientContext, Operation operation, int book) {
+        final long start = System.nanoTime();
+        int status;
+        try {
+            status = operation.execute(client, clientContext, book);
+        } catch (Exception e) {
+            status = 0;
+        }
+        statistics.record(operation, System.nanoTime() - start, status);
+        return status;
+    }
+
+    private void writeReport(LoadStatistics measured, double elapsedSeconds, ObjectMapper objectMapper) throws Exception {
+        final long requests = measured.totalRequests();
+
+        final Map<String, Object> report = new LinkedHashMap<>();
+        report.put("catalogSize", catalogSize);
+        report.put("threads", threads);
+        report.put("mix", mix.getWeights());
+        report.put("executionMode", context.getEnvironment().getProperty("books.execution.mode"));
+        report.put("durationSeconds", elapsedSeconds);
+        report.put("requests", requests);
+        report.put("errors", measured.totalErrors());
+        report.put("throughput", requests / elapsedSeconds);
+        report.put("operations", measured.report(elapsedSeconds));
+
+        if (reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        log("report written to %s", reportFile.getAbsolutePath());
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.println("[load-test] " + String.format(format, args));
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.sbouclier.javarestbooks.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sbouclier.javarestbooks.catalog.CatalogGenerator;
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Requests of a workload, each one on a book of the generated catalog drawn uniformly
+ */
+enum Operation {
+
+    GET_BOOK {
+        @Override
+        int execute(HttpClient client, Context context, int book) throws IOException {
+            return client.request("GET", "/api/books/" + CatalogGenerator.isbn(book), null, null);
+        }
+    },
+
+    /**
+     * Any page of the catalog, deep offsets included
+     */
+    GET_ALL_BOOKS {
+        @Override
+        int execute(HttpClient client, Context context, int book) throws IOException {
+            return client.request("GET", "/api/books?page=" + book / context.pageSize + "&size=" + context.pageSize,
+                    null, null);
+        }
+    },
+
+    PUT_BOOK {
+        @Override
+        int execute(HttpClient client, Context context, int book) throws IOException {
+            final Book update = new Book(CatalogGenerator.isbn(book), "Updated title " + context.random.nextInt(1000),
+                    "Load Test Press");
+            update.setDescription("Updated description");
+            update.addAuthor(new Author("John", "Doe"));
+            return client.request("PUT", "/api/books/" + update.getIsbn(), "application/json",
+                    context.objectMapper.writeValueAsString(update));
+        }
+    },
+
+    PATCH_BOOK {
+        @Override
+        int execute(HttpClient client, Context context, int book) throws IOException {
+            return client.request("PATCH", "/api/books/" + CatalogGenerator.isbn(book), "application/json",
+                    "Patched description " + context.random.nextInt(1000));
+        }
+    },
+
+    /**
+     * Delete a book and create it again, so that the catalog keeps its size. The creation is measured as
+     * CREATE_BOOK and only happens when the deletion succeeded.
+     */
+    DELETE_BOOK {
+        @Override
+        int execute(HttpClient client, Context context, int book) throws IOException {
+            return client.request("DELETE", "/api/books/" + CatalogGenerator.isbn(book), null, null);
+        }
+    },
+
+    CREATE_BOOK {
+        @Override
+        int execute(HttpClient client, Context context, int book) throws IOException {
+            final Book created = new Book(CatalogGenerator.isbn(book), "Created title", "Load Test Press");
+            created.addAuthor(new Author("Jane", "Doe"));
+            return client.request("POST", "/api/books", "application/json",
+                    context.objectMapper.writeValueAsString(created));
+        }
+    };
+
+    /**
+     * @return the response status
+     */
+    abstract int execute(HttpClient client, Context context, int book) throws IOException;
+
+    /**
+     * State of a load test thread
+     */
+    static class Context {
+
+        final ObjectMapper objectMapper;
+
+        final Random random;
+
+        final int pageSize;
+
+        Context(ObjectMapper objectMapper, Random random, int pageSize) {
+            this.objectMapper = objectMapper;
+            this.random = random;
+            this.pageSize = pageSize;
+        }
+    }
+}
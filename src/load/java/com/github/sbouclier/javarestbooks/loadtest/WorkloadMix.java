@@ -0,0 +1,68 @@
+package com.github.sbouclier.javarestbooks.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weights of the operations of a workload, either a preset ("read-heavy", "write-heavy")
+ * or a list such as "GET_BOOK=70,GET_ALL_BOOKS=20,PATCH_BOOK=10"
+ */
+class WorkloadMix {
+
+    private final Map<Operation, Integer> weights;
+
+    private final Operation[] operations;
+
+    private final int[] cumulatedWeights;
+
+    private WorkloadMix(Map<Operation, Integer> weights) {
+        this.weights = weights;
+        this.operations = weights.keySet().toArray(new Operation[0]);
+        this.cumulatedWeights = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulatedWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("workload mix has no operation");
+        }
+    }
+
+    static WorkloadMix parse(String mix) {
+        switch (mix) {
+            case "read-heavy":
+                return parse("GET_BOOK=80,GET_ALL_BOOKS=10,PUT_BOOK=4,PATCH_BOOK=4,DELETE_BOOK=2");
+            case "write-heavy":
+                return parse("GET_BOOK=30,GET_ALL_BOOKS=10,PUT_BOOK=25,PATCH_BOOK=25,DELETE_BOOK=10");
+            default:
+                final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+                for (String entry : mix.split(",")) {
+                    final String[] operationAndWeight = entry.trim().split("=");
+                    if (operationAndWeight.length != 2) {
+                        throw new IllegalArgumentException("invalid workload mix entry: '" + entry + "'");
+                    }
+                    final Operation operation = Operation.valueOf(operationAndWeight[0].trim());
+                    if (operation == Operation.CREATE_BOOK) {
+                        throw new IllegalArgumentException("CREATE_BOOK follows DELETE_BOOK, it has no weight");
+                    }
+                    weights.put(operation, Integer.valueOf(operationAndWeight[1].trim()));
+                }
+                return new WorkloadMix(weights);
+        }
+    }
+
+    Operation next(Random random) {
+        final int draw = random.nextInt(cumulatedWeights[cumulatedWeights.length - 1]);
+        int i = 0;
+        while (draw >= cumulatedWeights[i]) {
+            i++;
+        }
+        return operations[i];
+    }
+
+    Map<Operation, Integer> getWeights() {
+        return weights;
+    }
+}
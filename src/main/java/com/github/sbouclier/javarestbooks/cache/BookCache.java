@@ -0,0 +1,222 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.sbouclier.javarestbooks.datasource.ReplicaReadContext;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded read-through cache of books by ISBN
+ *
+ * Books are cached by the numeric form of their ISBN (see {@link Isbn}) so that any way of writing an ISBN hits
+ * the same entry, and ISBNs rejected by the {@link IsbnFilter} are answered without the database.
+ *
+ * Cached books are detached snapshots with their authors initialized, they must never be modified:
+ * write paths load the book from the repository and their {@link BookEvent} evicts the ISBN afterwards.
+ * Books are loaded from the primary database (see {@link ReplicaReadContext}), with their description accepted by
+ * the {@link DescriptionWriteQueue} but not yet written.
+ * Caches derived from books, like the {@link BookJsonCache}, are evicted right after the books they were built from.
+ */
+@Component
+public class BookCache {
+
+    private final BookRepository bookRepository;
+
+    private final IsbnFilter isbnFilter;
+
+    private final DescriptionWriteQueue descriptionWriteQueue;
+
+    private final Cache<String, Book> cache;
+
+    // books loaded together are cached only when no eviction happened meanwhile, it is counted before invalidating
+    private final AtomicLong evictions = new AtomicLong();
+
+    // caches of values built from cached books, by canonical ISBN
+    private final List<Cache<String, ?>> derivedCaches = new CopyOnWriteArrayList<>();
+
+    public BookCache(BookRepository bookRepository, IsbnFilter isbnFilter, DescriptionWriteQueue descriptionWriteQueue,
+                     @Value("${books.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${books.cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.bookRepository = bookRepository;
+        this.isbnFilter = isbnFilter;
+        this.descriptionWriteQueue = descriptionWriteQueue;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Book> findByIsbn(String isbn) {
+        if (!isbnFilter.mightExist(isbn)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(Isbn.canonical(isbn),
+                key -> ReplicaReadContext.onPrimary(() -> load(isbn))));
+    }
+
+    /**
+     * Find several books at once: cached books are served from the cache, the others are loaded with their authors
+     * in a single query and cached.
+     *
+     * @return books by canonical ISBN (see {@link Isbn#canonical(String)}), books not found are absent
+     */
+    public Map<String, Book> findAllByIsbn(Collection<String> isbns) {
+        final Set<String> keys = new LinkedHashSet<>();
+        for (String isbn : isbns) {
+            if (isbnFilter.mightExist(isbn)) {
+                keys.add(Isbn.canonical(isbn));
+            }
+        }
+
+        final Map<String, Book> books = new HashMap<>(cache.getAllPresent(keys));
+        keys.removeAll(books.keySet());
+        if (!keys.isEmpty()) {
+            final long evictionCount = evictions.get();
+            final Map<String, Book> loadedBooks = ReplicaReadContext.onPrimary(() -> loadAll(keys));
+            books.putAll(loadedBooks);
+            loadedBooks.forEach((key, book) -> cache.asMap().compute(key, (k, cachedBook) -> {
+                // checked under the lock of the key: an eviction counted later invalidates the key afterwards
+                if (cachedBook != null) {
+                    return cachedBook;
+                }
+                return evictions.get() == evictionCount ? book : null;
+            }));
+        }
+        return books;
+    }
+
+    /**
+     * Get a book only if it is cached, without loading it
+     */
+    public Optional<Book> peek(String isbn) {
+        return Optional.ofNullable(cache.getIfPresent(Isbn.canonical(isbn)));
+    }
+
+    /**
+     * Register a cache of values built from books of this cache, so that an entry is evicted each time its book is
+     */
+    public void addDerivedCache(Cache<String, ?> derivedCache) {
+        derivedCaches.add(derivedCache);
+    }
+
+    /**
+     * Evict a book, immediately and once again when the current transaction completes so that a book
+     * read from an uncommitted (or rolled back) transaction never outlives it.
+     */
+    public void evict(String isbn) {
+        final String key = Isbn.canonical(isbn);
+        evictions.incrementAndGet();
+        invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidate(key);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onBookEvent(BookEvent event) {
+        // unknown books are never cached, a created one cannot be stale
+        if (event.getType() == BookEvent.Type.CREATED) {
+            return;
+        }
+        evict(event.getIsbn());
+        if (event.getBook() != null && !event.getIsbn().equals(event.getBook().getIsbn())) {
+            evict(event.getBook().getIsbn());
+        }
+    }
+
+    public void evictAll() {
+        evictions.incrementAndGet();
+        cache.invalidateAll();
+        derivedCaches.forEach(Cache::invalidateAll);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Invalidate a book, then the values built from it: a derived value loaded meanwhile is built from the new book
+     */
+    private void invalidate(String key) {
+        cache.invalidate(key);
+        for (Cache<String, ?> derivedCache : derivedCaches) {
+            derivedCache.invalidate(key);
+        }
+    }
+
+    private Book load(String isbn) {
+        final long isbnKey = Isbn.toKey(isbn);
+        final Optional<Book> found = isbnKey == Isbn.NO_KEY
+                ? bookRepository.findByIsbn(isbn)
+                : bookRepository.findByIsbnKey(isbnKey);
+        return found
+                .map(book -> {
+                    Hibernate.initialize(book.getAuthors());
+                    return descriptionWriteQueue.overlay(book);
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Load books by canonical ISBN, like {@link #load(String)}
+     */
+    private Map<String, Book> loadAll(Collection<String> keys) {
+        final List<Long> isbnKeys = new ArrayList<>(keys.size());
+        final List<String> isbns = new ArrayList<>();
+        for (String key : keys) {
+            final long isbnKey = Isbn.toKey(key);
+            if (isbnKey == Isbn.NO_KEY) {
+                isbns.add(key);
+            } else {
+                isbnKeys.add(isbnKey);
+            }
+        }
+
+        final List<Book> found = new ArrayList<>(keys.size());
+        if (!isbnKeys.isEmpty()) {
+            found.addAll(bookRepository.findWithAuthorsByIsbnKeyIn(isbnKeys));
+        }
+        if (!isbns.isEmpty()) {
+            found.addAll(bookRepository.findWithAuthorsByIsbnIn(isbns));
+        }
+
+        final Map<String, Book> books = new HashMap<>();
+        for (Book book : found) {
+            books.put(Isbn.canonical(book.getIsbn()), descriptionWriteQueue.overlay(book));
+        }
+        return books;
+    }
+}
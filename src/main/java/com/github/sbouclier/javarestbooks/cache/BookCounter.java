@@ -0,0 +1,166 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.github.sbouclier.javarestbooks.domain.BookCount;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Total number of books, kept in memory and in the book_count row so that list pages need no count query.
+ *
+ * Writes of BookRepository add to the row within their transaction, last so that the row lock is held only until
+ * the commit, and to the in-memory total once committed. The row is reconciled with a count of the book table at
+ * startup and periodically, which corrects writes made outside the repository (CatalogWriter, snapshot load) and
+ * in-memory deltas racing the reconciliation.
+ */
+@Component
+public class BookCounter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookCounter.class);
+
+    private static final String ADD_TO_TOTAL = "update book_count set total = total + ? where id = " + BookCount.ID;
+
+    // locks the row first: writes in flight either committed before the count or add to it after
+    private static final String LOCK_TOTAL = "select total from book_count where id = " + BookCount.ID + " for update";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final long reconcileIntervalMillis;
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final LongAdder reconciliations = new LongAdder();
+
+    private final LongAdder corrections = new LongAdder();
+
+    private volatile boolean loaded;
+
+    private ScheduledExecutorService worker;
+
+    public BookCounter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       @Value("${books.count.reconcile-interval-ms:60000}") long reconcileIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        // its own read-write transaction, also when the total is first read within a read-only one
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reconcileIntervalMillis = reconcileIntervalMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        reconcile();
+        if (reconcileIntervalMillis <= 0 || worker != null) {
+            return;
+        }
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "book-count-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMillis, reconcileIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the number of books, as of the last committed write
+     */
+    public long total() {
+        if (!loaded) {
+            reconcile();
+        }
+        return total.get();
+    }
+
+    /**
+     * Add books to the total within the current transaction, the in-memory total follows once it is committed
+     */
+    public void add(long delta) {
+        if (delta == 0) {
+            return;
+        }
+        jdbcTemplate.update(ADD_TO_TOTAL, delta);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    total.addAndGet(delta);
+                }
+            });
+        } else {
+            total.addAndGet(delta);
+        }
+    }
+
+    /**
+     * Count the books and correct the stored and in-memory totals
+     *
+     * @return the number of books
+     */
+    public synchronized long reconcile() {
+        final long count = transactionTemplate.execute(status -> {
+            final List<Long> stored = jdbcTemplate.queryForList(LOCK_TOTAL, Long.class);
+            final long books = jdbcTemplate.queryForObject("select count(*) from book", Long.class);
+            if (stored.isEmpty()) {
+                jdbcTemplate.update("insert into book_count(id, total) values (?, ?)", BookCount.ID, books);
+            } else if (stored.get(0) != books) {
+                LOGGER.info("Book count corrected from {} to {}", stored.get(0), books);
+                jdbcTemplate.update("update book_count set total = ? where id = " + BookCount.ID, books);
+                corrections.increment();
+            }
+            return books;
+        });
+        total.set(count);
+        loaded = true;
+        reconciliations.increment();
+        return count;
+    }
+
+    private void reconcileQuietly() {
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Book count not reconciled", e);
+        }
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public long reconciliationCount() {
+        return reconciliations.sum();
+    }
+
+    /**
+     * Number of reconciliations that found the stored total wrong
+     */
+    public long correctionCount() {
+        return corrections.sum();
+    }
+}
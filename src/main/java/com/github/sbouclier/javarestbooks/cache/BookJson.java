@@ -0,0 +1,100 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized JSON of a book, ready to be written as a response body, with the id and version of the book
+ * and optionally its gzipped form.
+ *
+ * Bytes are held in heap arrays or in direct buffers, outside of the heap. They are never modified.
+ */
+public final class BookJson {
+
+    private final Long id;
+
+    private final Long version;
+
+    private final ByteBuffer content;
+
+    private final boolean gzip;
+
+    // gzipped form of an identity representation, null when not kept
+    private final BookJson gzipped;
+
+    private BookJson(Long id, Long version, ByteBuffer content, boolean gzip, BookJson gzipped) {
+        this.id = id;
+        this.version = version;
+        this.content = content;
+        this.gzip = gzip;
+        this.gzipped = gzipped;
+    }
+
+    /**
+     * @param gzip keep the gzipped form too
+     * @param offHeap copy bytes to direct buffers
+     */
+    static BookJson of(Long id, Long version, byte[] json, boolean gzip, boolean offHeap) {
+        final BookJson gzipped = gzip ? new BookJson(id, version, buffer(gzip(json), offHeap), true, null) : null;
+        return new BookJson(id, version, buffer(json, offHeap), false, gzipped);
+    }
+
+    /**
+     * Gzipped form when kept and accepted by the client, this representation otherwise
+     */
+    public BookJson encoded(boolean acceptsGzip) {
+        return acceptsGzip && gzipped != null ? gzipped : this;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Bytes to write, each call gets its own position
+     */
+    public ByteBuffer getContent() {
+        return content.duplicate();
+    }
+
+    public int getContentLength() {
+        return content.remaining();
+    }
+
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * Bytes held by this representation and its gzipped form
+     */
+    int weight() {
+        return getContentLength() + (gzipped != null ? gzipped.getContentLength() : 0);
+    }
+
+    private static ByteBuffer buffer(byte[] bytes, boolean offHeap) {
+        if (!offHeap) {
+            return ByteBuffer.wrap(bytes);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
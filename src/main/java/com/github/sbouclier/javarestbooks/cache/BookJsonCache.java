@@ -0,0 +1,90 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-through cache of the serialized JSON of books by ISBN, on top of the {@link BookCache}: a hit is written
+ * as is, without running Jackson.
+ *
+ * The cache is bounded by the bytes it holds ({@code books.json-cache.maximum-bytes}). Gzipped forms are kept
+ * too with {@code books.json-cache.gzip}, and {@code books.json-cache.off-heap} moves all bytes to direct buffers
+ * so that a large catalog does not grow the heap. The JSON of a book is evicted by the {@link BookCache}, right after
+ * the book itself on every {@link BookEvent}, and expires like books ({@code books.cache.expire-after-write-seconds}).
+ */
+@Component
+public class BookJsonCache {
+
+    private final BookCache bookCache;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean gzip;
+
+    private final boolean offHeap;
+
+    private final Cache<String, BookJson> cache;
+
+    public BookJsonCache(BookCache bookCache, ObjectMapper objectMapper,
+                         @Value("${books.json-cache.maximum-bytes:67108864}") long maximumBytes,
+                         @Value("${books.json-cache.gzip:true}") boolean gzip,
+                         @Value("${books.json-cache.off-heap:false}") boolean offHeap,
+                         @Value("${books.cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds) {
+        this.bookCache = bookCache;
+        this.objectMapper = objectMapper;
+        this.gzip = gzip;
+        this.offHeap = offHeap;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((String isbn, BookJson json) -> json.weight())
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        bookCache.addDerivedCache(cache);
+    }
+
+    public Optional<BookJson> findByIsbn(String isbn) {
+        return Optional.ofNullable(cache.get(Isbn.canonical(isbn), key -> load(isbn)));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Bytes held by all entries
+     */
+    public long weightedSize() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private BookJson load(String isbn) {
+        return bookCache.findByIsbn(isbn)
+                .map(this::serialize)
+                .orElse(null);
+    }
+
+    private BookJson serialize(Book book) {
+        try {
+            return BookJson.of(book.getId(), book.getVersion(), objectMapper.writeValueAsBytes(book), gzip, offHeap);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
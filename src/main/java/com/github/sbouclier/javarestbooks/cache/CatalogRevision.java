@@ -0,0 +1,51 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Revision of the whole catalog, incremented on every write. It validates list responses without querying books.
+ *
+ * The epoch, drawn at startup, keeps revisions of a previous run from being mistaken for current ones.
+ */
+@Component
+public class CatalogRevision {
+
+    private final long epoch = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+
+    private final AtomicLong revision = new AtomicLong();
+
+    @EventListener
+    public void onBookEvent(BookEvent event) {
+        increment();
+    }
+
+    /**
+     * Increment the revision, immediately and once again when the current transaction completes so that
+     * a list read before the commit is never tagged with the new revision.
+     */
+    public void increment() {
+        revision.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    revision.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    /**
+     * Strong ETag of the current revision
+     */
+    public String etag() {
+        return "\"" + Long.toString(epoch, 36) + "-" + revision.get() + "\"";
+    }
+}
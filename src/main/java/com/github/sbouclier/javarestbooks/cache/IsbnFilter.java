@@ -0,0 +1,106 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory set of the ISBN keys of all books, it tells when a book definitely does not exist
+ * so that its lookup can skip the database.
+ *
+ * Keys are added as soon as a book is written, even if the transaction rolls back later, and never removed:
+ * a stale key only costs a database lookup. Until the set is loaded at startup every ISBN may exist.
+ */
+@Component
+public class IsbnFilter {
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private final LongHashSet keys = new LongHashSet(1024);
+
+    private volatile boolean loaded;
+
+    public IsbnFilter(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            // keys written before loading are kept
+            bookRepository.forEachIsbnKey(keys::add);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false when no book has this ISBN, true when a book may have it
+     */
+    public boolean mightExist(String isbn) {
+        final long key = Isbn.toKey(isbn);
+        if (!loaded || key == Isbn.NO_KEY) {
+            return true;
+        }
+
+        lock.readLock().lock();
+        try {
+            if (keys.contains(key)) {
+                return true;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        rejections.increment();
+        return false;
+    }
+
+    @EventListener
+    public void onBookEvent(BookEvent event) {
+        if (event.getBook() != null) {
+            add(event.getBook().getIsbn());
+        }
+    }
+
+    public void add(String isbn) {
+        final long key = Isbn.toKey(isbn);
+        if (key == Isbn.NO_KEY) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            keys.add(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return keys.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of lookups answered without the database
+     */
+    public long rejectionCount() {
+        return rejections.sum();
+    }
+}
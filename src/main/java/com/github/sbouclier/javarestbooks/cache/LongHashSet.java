@@ -0,0 +1,92 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+/**
+ * Set of non-negative longs with open addressing and linear probing: 8 to 16 bytes per value,
+ * no boxing and no entry objects. Not thread-safe.
+ */
+final class LongHashSet {
+
+    private static final int MIN_CAPACITY = 16;
+
+    // values are stored plus one, 0 marks an empty slot
+    private long[] slots;
+
+    private int size;
+
+    LongHashSet(int expectedSize) {
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    boolean add(long value) {
+        checkValue(value);
+        if ((size + 1) * 2 > slots.length) {
+            resize(slots.length * 2);
+        }
+        if (insert(slots, value + 1)) {
+            size++;
+            return true;
+        }
+        return false;
+    }
+
+    boolean contains(long value) {
+        if (value < 0) {
+            return false;
+        }
+        final long stored = value + 1;
+        final int mask = slots.length - 1;
+        for (int i = indexOf(stored, mask); slots[i] != 0; i = (i + 1) & mask) {
+            if (slots[i] == stored) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void resize(int capacity) {
+        final long[] resized = new long[capacity];
+        for (long stored : slots) {
+            if (stored != 0) {
+                insert(resized, stored);
+            }
+        }
+        slots = resized;
+    }
+
+    private static boolean insert(long[] slots, long stored) {
+        final int mask = slots.length - 1;
+        int i = indexOf(stored, mask);
+        while (slots[i] != 0) {
+            if (slots[i] == stored) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = stored;
+        return true;
+    }
+
+    private static int indexOf(long stored, int mask) {
+        // spread the bits, ISBN keys share most of their high digits
+        final long hash = stored * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2L && capacity < (1 << 30)) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void checkValue(long value) {
+        if (value < 0 || value == Long.MAX_VALUE) {
+            throw new IllegalArgumentException("value not supported: " + value);
+        }
+    }
+}
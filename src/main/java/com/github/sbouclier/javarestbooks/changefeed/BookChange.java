@@ -0,0 +1,83 @@
+package com.github.sbouclier.javarestbooks.changefeed;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Committed write of a book, numbered in the order of the change log.
+ *
+ * A replica applies a change by removing the book of {@code isbn} when the ISBN changed, then storing {@code book}
+ * under its ISBN, or removing the book when deleted.
+ */
+public class BookChange {
+
+    private final long sequence;
+
+    private final BookEvent.Type type;
+
+    private final String isbn;
+
+    private final Book book;
+
+    private BookChange(long sequence, BookEvent.Type type, String isbn, Book book) {
+        this.sequence = sequence;
+        this.type = type;
+        this.isbn = isbn;
+        this.book = book;
+    }
+
+    static BookChange of(long sequence, BookEvent event) {
+        return new BookChange(sequence, event.getType(), event.getIsbn(), event.getBook());
+    }
+
+    /**
+     * Changes of the same key can be compacted into the last one: they remove the same ISBN and store the same one,
+     * a delete stores no book under the ISBN it removes
+     */
+    String key() {
+        final String before = Isbn.canonical(isbn);
+        return before + ' ' + (book == null ? before : Isbn.canonical(book.getIsbn()));
+    }
+
+    // -------------
+    // - TO STRING -
+    // -------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("sequence", sequence)
+                .append("type", type)
+                .append("isbn", isbn)
+                .toString();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public BookEvent.Type getType() {
+        return type;
+    }
+
+    /**
+     * ISBN of the book before the write
+     */
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * Book after the write, null when deleted
+     */
+    public Book getBook() {
+        return book;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.sbouclier.javarestbooks.changefeed;
+
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.exception.InvalidSequenceException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Ordered log of committed book writes, read by replicas of the catalog with {@code GET /api/books/changes}.
+ *
+ * Every {@link BookEvent} is appended once committed with the next sequence number. The last
+ * {@code books.changes.retention} changes are retained in a ring, a consumer resumes after any sequence still
+ * retained. The log lives in memory: after a restart sequences start again from 0 and consumers read the whole
+ * catalog again.
+ */
+@Component
+public class BookChangeLog {
+
+    private final BookChange[] ring;
+
+    private final int bufferSize;
+
+    private final int batchSize;
+
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        final Thread thread = new Thread(runnable, "book-change-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<BookChangeSubscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    // long polls waiting for the next change
+    private final List<Runnable> waiters = new ArrayList<>();
+
+    private long lastSequence;
+
+    public BookChangeLog(@Value("${books.changes.retention:10000}") int retention,
+                         @Value("${books.changes.buffer-size:1000}") int bufferSize,
+                         @Value("${books.changes.batch-size:100}") int batchSize) {
+        this.ring = new BookChange[retention];
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEvent(BookEvent event) {
+        append(event);
+    }
+
+    /**
+     * Append a committed write with the next sequence number, then wake up its consumers
+     */
+    public BookChange append(BookEvent event) {
+        final BookChange change;
+        final List<Runnable> woken;
+        synchronized (this) {
+            change = BookChange.of(++lastSequence, event);
+            ring[(int) (lastSequence % ring.length)] = change;
+            for (BookChangeSubscriber subscriber : subscribers) {
+                subscriber.offer(change);
+            }
+            woken = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        woken.forEach(Runnable::run);
+        return change;
+    }
+
+    /**
+     * Changes after a sequence, in order
+     *
+     * @param sequence sequence of the last change the consumer has, 0 for all retained changes of a new log
+     * @param limit maximum number of changes
+     */
+    public synchronized List<BookChange> since(long sequence, int limit) {
+        checkRetained(sequence);
+        final int count = (int) Math.min(lastSequence - sequence, limit);
+        final List<BookChange> changes = new ArrayList<>(count);
+        for (long next = sequence + 1; next <= sequence + count; next++) {
+            changes.add(ring[(int) (next % ring.length)]);
+        }
+        return changes;
+    }
+
+    /**
+     * Run a task on the next change, unless the log already holds changes after the sequence
+     *
+     * @return false when the log holds changes after the sequence, the task is then not registered
+     */
+    public synchronized boolean await(long sequence, Runnable waiter) {
+        checkRetained(sequence);
+        if (sequence < lastSequence) {
+            return false;
+        }
+        waiters.add(waiter);
+        return true;
+    }
+
+    public synchronized void cancel(Runnable waiter) {
+        waiters.remove(waiter);
+    }
+
+    /**
+     * Send the changes after a sequence, then every new change, until the subscriber is cancelled
+     */
+    public BookChangeSubscriber subscribe(long sequence, BookChangeSender sender) {
+        return subscribe(sequence, sender, senders);
+    }
+
+    synchronized BookChangeSubscriber subscribe(long sequence, BookChangeSender sender, Executor executor) {
+        checkRetained(sequence);
+        final BookChangeSubscriber subscriber =
+                new BookChangeSubscriber(this, sender, executor, sequence, bufferSize, batchSize);
+        subscriber.liveAt(lastSequence);
+        subscribers.add(subscriber);
+        if (!subscriber.isLive()) {
+            subscriber.wakeUp();
+        }
+        return subscriber;
+    }
+
+    void unsubscribe(BookChangeSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    /**
+     * Make a subscriber live when it has read every change
+     */
+    synchronized void resume(BookChangeSubscriber subscriber) {
+        subscriber.liveAt(lastSequence);
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void stop() {
+        for (BookChangeSubscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        senders.shutdownNow();
+    }
+
+    private void checkRetained(long sequence) {
+        final long minSequence = Math.max(0, lastSequence - ring.length);
+        if (sequence < minSequence || sequence > lastSequence) {
+            throw new InvalidSequenceException(sequence, minSequence, lastSequence);
+        }
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+}
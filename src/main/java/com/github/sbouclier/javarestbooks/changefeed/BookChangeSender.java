@@ -0,0 +1,20 @@
+package com.github.sbouclier.javarestbooks.changefeed;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Connection of a {@link BookChangeSubscriber}, an SSE stream for instance
+ */
+public interface BookChangeSender {
+
+    /**
+     * Send changes in sequence order, it may block until the consumer has read them
+     */
+    void send(List<BookChange> changes) throws IOException;
+
+    /**
+     * End the connection, the consumer may resume after the last change it received
+     */
+    void close();
+}
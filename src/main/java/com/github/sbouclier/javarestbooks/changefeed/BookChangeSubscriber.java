@@ -0,0 +1,182 @@
+package com.github.sbouclier.javarestbooks.changefeed;
+
+import com.github.sbouclier.javarestbooks.exception.InvalidSequenceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * Consumer of the {@link BookChangeLog}, fed by its own sender task so that a slow consumer never holds writers back.
+ *
+ * A subscriber behind the log first catches up, reading the log in batches. Once caught up it is live: new changes
+ * go to a buffer the sender takes as a whole, in which changes of the same book are compacted into the last one.
+ * When the buffer holds more than its size, it is dropped and the subscriber catches up from the log again; a
+ * subscriber so far behind that the log no longer retains its position is closed.
+ */
+public class BookChangeSubscriber {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BookChangeSubscriber.class);
+
+    private final BookChangeLog log;
+
+    private final BookChangeSender sender;
+
+    private final Executor executor;
+
+    private final int bufferSize;
+
+    private final int batchSize;
+
+    // compaction key -> last change of the key, in sequence order
+    private final Map<String, BookChange> buffer = new LinkedHashMap<>();
+
+    // sequence of the last change handed to the sender
+    private long position;
+
+    private boolean live;
+
+    private boolean sending;
+
+    private boolean closed;
+
+    BookChangeSubscriber(BookChangeLog log, BookChangeSender sender, Executor executor, long position, int bufferSize,
+                         int batchSize) {
+        this.log = log;
+        this.sender = sender;
+        this.executor = executor;
+        this.position = position;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Stop sending changes, when the connection is over
+     */
+    public void cancel() {
+        synchronized (this) {
+            closed = true;
+            buffer.clear();
+        }
+        log.unsubscribe(this);
+    }
+
+    /**
+     * Buffer a change when live, then make sure the sender runs. Called by the log in sequence order.
+     */
+    void offer(BookChange change) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (live) {
+                final String key = change.key();
+                buffer.remove(key);
+                buffer.put(key, change);
+                if (buffer.size() > bufferSize) {
+                    // every buffered change is still in the log
+                    buffer.clear();
+                    live = false;
+                }
+            }
+        }
+        wakeUp();
+    }
+
+    /**
+     * Start the sender unless it is running
+     */
+    void wakeUp() {
+        synchronized (this) {
+            if (closed || sending) {
+                return;
+            }
+            sending = true;
+        }
+        executor.execute(this::send);
+    }
+
+    /**
+     * Switch to live once the log holds no change after the position, called by the log
+     */
+    synchronized void liveAt(long lastSequence) {
+        if (position == lastSequence) {
+            live = true;
+        }
+    }
+
+    private void send() {
+        try {
+            for (List<BookChange> changes = next(); !changes.isEmpty(); changes = next()) {
+                sender.send(changes);
+            }
+        } catch (IOException | InvalidSequenceException e) {
+            LOGGER.debug("Book change subscriber closed", e);
+            close();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Book change subscriber closed", e);
+            close();
+        }
+    }
+
+    /**
+     * Next changes to send, the sender stops when there are none
+     */
+    private List<BookChange> next() {
+        while (true) {
+            final long from;
+            synchronized (this) {
+                if (closed || live && buffer.isEmpty()) {
+                    sending = false;
+                    return Collections.emptyList();
+                }
+                if (live) {
+                    final List<BookChange> changes = new ArrayList<>(buffer.values());
+                    buffer.clear();
+                    position = changes.get(changes.size() - 1).getSequence();
+                    return changes;
+                }
+                from = position;
+            }
+
+            final List<BookChange> changes = log.since(from, batchSize);
+            if (changes.isEmpty()) {
+                log.resume(this);
+                continue;
+            }
+            synchronized (this) {
+                position = changes.get(changes.size() - 1).getSequence();
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Cancel and end the connection, the consumer resumes from its last change
+     */
+    void close() {
+        synchronized (this) {
+            sending = false;
+        }
+        cancel();
+        sender.close();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public synchronized long position() {
+        return position;
+    }
+
+    public synchronized boolean isLive() {
+        return live;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.sbouclier.javarestbooks.concurrency;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.exception.DatabaseBusyException;
+import com.github.sbouclier.javarestbooks.metrics.LatencyHistogram;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bound the number of threads running BookRepository methods, so that many request threads queue here in order
+ * instead of stampeding the connection pool. A thread which waits longer than the timeout gets a
+ * {@link DatabaseBusyException} (503).
+ *
+ * Nested repository calls of a thread reuse its slot. The default limit matches the default pool size.
+ * The lazy authors of the books returned are loaded before the slot is released, otherwise their batch loads would
+ * run while the response is serialized, outside the limit.
+ * Streaming methods (forEach, forEachIsbnKey) are not limited: they hold their connection as long as the consumer
+ * reads, an export to a slow client would keep a slot for minutes.
+ *
+ * Only enabled in the elastic execution mode (see {@link ElasticExecutionConfiguration}), where the number of
+ * request threads is not bounded by the Tomcat pool.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "books.execution.mode", havingValue = "elastic")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DatabaseConcurrencyLimiter {
+
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private final Semaphore slots;
+
+    private final int maxConcurrency;
+
+    private final long acquireTimeoutNanos;
+
+    private final LatencyHistogram waitLatency = new LatencyHistogram();
+
+    private final LongAdder rejections = new LongAdder();
+
+    public DatabaseConcurrencyLimiter(@Value("${books.db.max-concurrency:10}") int maxConcurrency,
+                                      @Value("${books.db.acquire-timeout-ms:1000}") long acquireTimeoutMillis) {
+        this.slots = new Semaphore(maxConcurrency, true);
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMillis);
+    }
+
+    @Around("execution(* com.github.sbouclier.javarestbooks.repository.BookRepository+.*(..))"
+            + " && !execution(* com.github.sbouclier.javarestbooks.repository.BookRepository+.forEach*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        final int[] currentDepth = depth.get();
+        if (currentDepth[0] > 0) {
+            return proceed(joinPoint, currentDepth);
+        }
+
+        final long start = System.nanoTime();
+        final boolean acquired = slots.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        final long waited = System.nanoTime() - start;
+        waitLatency.record(waited);
+        if (!acquired) {
+            rejections.increment();
+            throw new DatabaseBusyException(TimeUnit.NANOSECONDS.toMillis(waited));
+        }
+
+        try {
+            final Object result = proceed(joinPoint, currentDepth);
+            initializeAuthors(result);
+            return result;
+        } finally {
+            slots.release();
+        }
+    }
+
+    /**
+     * Load the authors of a book, or of the books of a list or page, still holding the slot
+     */
+    private static void initializeAuthors(Object result) {
+        if (result instanceof Optional) {
+            initializeAuthors(((Optional<?>) result).orElse(null));
+        } else if (result instanceof Iterable) {
+            for (Object element : (Iterable<?>) result) {
+                if (!(element instanceof Book)) {
+                    return;
+                }
+                initializeAuthors(element);
+            }
+        } else if (result instanceof Book && !Hibernate.isInitialized(((Book) result).getAuthors())) {
+            Hibernate.initialize(((Book) result).getAuthors());
+        }
+    }
+
+    private static Object proceed(ProceedingJoinPoint joinPoint, int[] currentDepth) throws Throwable {
+        currentDepth[0]++;
+        try {
+            return joinPoint.proceed();
+        } finally {
+            currentDepth[0]--;
+        }
+    }
+
+    public LatencyHistogram.Snapshot waitLatency() {
+        return waitLatency.snapshot();
+    }
+
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    public int getInUse() {
+        return maxConcurrency - slots.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return slots.getQueueLength();
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.sbouclier.javarestbooks.concurrency;
+
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Elastic execution mode, enabled with books.execution.mode=elastic.
+ *
+ * Tomcat requests run on up to books.execution.max-threads threads with small stacks, created on demand and
+ * dropped when idle, so that requests blocked on JDBC no longer exhaust the default pool of 200 threads.
+ * The {@link DatabaseConcurrencyLimiter} keeps the number of threads reaching the database bounded.
+ */
+@Configuration
+@ConditionalOnProperty(name = "books.execution.mode", havingValue = "elastic")
+public class ElasticExecutionConfiguration {
+
+    private static final long IDLE_SECONDS = 30;
+
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor requestExecutor(@Value("${books.execution.max-threads:5000}") int maxThreads,
+                                              @Value("${books.execution.thread-stack-size-kb:256}") long stackSizeKb) {
+        // every thread is a core thread timing out when idle: a thread is started for each request until the
+        // maximum is reached, then requests are queued
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new SmallStackThreadFactory(stackSizeKb * 1024));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> elasticExecutionCustomizer(ThreadPoolExecutor requestExecutor) {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            final ProtocolHandler protocolHandler = connector.getProtocolHandler();
+            if (protocolHandler instanceof AbstractProtocol) {
+                ((AbstractProtocol<?>) protocolHandler).setExecutor(requestExecutor);
+                ((AbstractProtocol<?>) protocolHandler).setMaxConnections(requestExecutor.getMaximumPoolSize() * 2);
+            }
+        });
+    }
+
+    private static class SmallStackThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        private final long stackSize;
+
+        SmallStackThreadFactory(long stackSize) {
+            this.stackSize = stackSize;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(null, runnable, "elastic-exec-" + threadNumber.incrementAndGet(), stackSize);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
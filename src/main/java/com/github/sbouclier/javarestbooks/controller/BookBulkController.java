@@ -0,0 +1,218 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.dto.BatchItemResult;
+import com.github.sbouclier.javarestbooks.dto.ImportReport;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.exception.InvalidBatchException;
+import com.github.sbouclier.javarestbooks.importer.BookImporter;
+import com.github.sbouclier.javarestbooks.importer.ConflictPolicy;
+import com.github.sbouclier.javarestbooks.importer.CsvBookReader;
+import com.github.sbouclier.javarestbooks.importer.NdjsonBookReader;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Book bulk operations controller
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(value = "/api/books")
+public class BookBulkController {
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final String DEFAULT_CHUNK_SIZE = "500";
+
+    private static final int MAX_BATCH_SIZE = 1000;
+
+    private final BookRepository bookRepository;
+
+    private final BookImporter bookImporter;
+
+    private final DescriptionWriteQueue descriptionWriteQueue;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Validator validator;
+
+    private final ObjectReader bookReader;
+
+    private final ObjectWriter bookWriter;
+
+    public BookBulkController(BookRepository bookRepository, BookImporter bookImporter,
+                              DescriptionWriteQueue descriptionWriteQueue, ApplicationEventPublisher eventPublisher,
+                              Validator validator, ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.bookImporter = bookImporter;
+        this.descriptionWriteQueue = descriptionWriteQueue;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.bookReader = objectMapper.readerFor(Book.class);
+        this.bookWriter = objectMapper.writerFor(Book.class);
+    }
+
+    /**
+     * Create many books at once: conflicts are detected with a single query and new books are inserted
+     * in JDBC batches. Each book gets its own result, in the request order.
+     *
+     * A book created concurrently with the same ISBN rolls the batch back: the ISBNs are checked again, the books
+     * created meanwhile are reported as conflicts and the others are inserted again.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult>> createBooks(@RequestBody List<Book> books) {
+        if (books.size() > MAX_BATCH_SIZE) {
+            throw new InvalidBatchException(books.size(), MAX_BATCH_SIZE);
+        }
+        final Set<String> existingIsbns = findExistingIsbns(books);
+
+        final List<BatchItemResult> results = new ArrayList<>(books.size());
+        final List<Book> booksToInsert = new ArrayList<>();
+        // position of each book to insert in the results
+        final List<Integer> insertedResults = new ArrayList<>();
+        for (Book book : books) {
+            if (book == null) {
+                results.add(BatchItemResult.invalid(null, "book may not be null"));
+                continue;
+            }
+            final Set<ConstraintViolation<Book>> violations = validator.validate(book);
+            if (!violations.isEmpty()) {
+                results.add(BatchItemResult.invalid(book.getIsbn(), toMessage(violations)));
+            } else if (!existingIsbns.add(Isbn.canonical(book.getIsbn()))) {
+                // already in the database or earlier in the batch
+                results.add(BatchItemResult.conflict(book.getIsbn()));
+            } else {
+                book.setId(null);
+                booksToInsert.add(book);
+                insertedResults.add(results.size());
+                results.add(BatchItemResult.created(book.getIsbn()));
+            }
+        }
+
+        while (true) {
+            try {
+                bookRepository.insertAll(booksToInsert);
+                break;
+            } catch (DataIntegrityViolationException e) {
+                final Set<String> createdMeanwhile = findExistingIsbns(booksToInsert);
+                if (createdMeanwhile.isEmpty()) {
+                    throw e;
+                }
+                for (int i = booksToInsert.size() - 1; i >= 0; i--) {
+                    final Book book = booksToInsert.get(i);
+                    book.setId(null);
+                    if (createdMeanwhile.contains(Isbn.canonical(book.getIsbn()))) {
+                        results.set(insertedResults.get(i), BatchItemResult.conflict(book.getIsbn()));
+                        booksToInsert.remove(i);
+                        insertedResults.remove(i);
+                    }
+                }
+            }
+        }
+        booksToInsert.forEach(book -> eventPublisher.publishEvent(BookEvent.created(book)));
+
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+
+    /**
+     * Export the whole catalog as newline-delimited JSON, books are streamed from a database cursor to the
+     * response one at a time so memory stays constant whatever the catalog size.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        final StreamingResponseBody body = out -> bookRepository.forEach(book -> {
+            try {
+                // the export reads the database, descriptions accepted by the write-behind queue are not there yet
+                out.write(bookWriter.writeValueAsBytes(descriptionWriteQueue.overlay(book)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(APPLICATION_NDJSON);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+
+    /**
+     * Import a feed of newline-delimited JSON books, the body is parsed as it is received and written in
+     * transactions of chunkSize books.
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<ImportReport> importNdjsonBooks(
+            InputStream body,
+            @RequestParam(required = false, defaultValue = "SKIP") ConflictPolicy onConflict,
+            @RequestParam(required = false, defaultValue = DEFAULT_CHUNK_SIZE) int chunkSize) {
+        final NdjsonBookReader records = new NdjsonBookReader(utf8Reader(body), bookReader);
+        return new ResponseEntity<>(bookImporter.importBooks(records, onConflict, chunkSize), HttpStatus.OK);
+    }
+
+    /**
+     * Import a feed of CSV books, see {@link CsvBookReader} for the expected columns
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReport> importCsvBooks(
+            InputStream body,
+            @RequestParam(required = false, defaultValue = "SKIP") ConflictPolicy onConflict,
+            @RequestParam(required = false, defaultValue = DEFAULT_CHUNK_SIZE) int chunkSize) {
+        final CsvBookReader records = new CsvBookReader(utf8Reader(body));
+        return new ResponseEntity<>(bookImporter.importBooks(records, onConflict, chunkSize), HttpStatus.OK);
+    }
+
+    private static BufferedReader utf8Reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    private Set<String> findExistingIsbns(List<Book> books) {
+        final Set<String> isbns = books.stream()
+                .filter(Objects::nonNull)
+                .map(Book::getIsbn)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        // canonical forms, another spelling of an existing ISBN is a conflict too
+        return isbns.isEmpty() ? new HashSet<>() : bookRepository.findExistingCanonicalIsbns(isbns);
+    }
+
+    private static String toMessage(Set<ConstraintViolation<Book>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
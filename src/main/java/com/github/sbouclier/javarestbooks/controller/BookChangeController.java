@@ -0,0 +1,106 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.changefeed.BookChange;
+import com.github.sbouclier.javarestbooks.changefeed.BookChangeLog;
+import com.github.sbouclier.javarestbooks.changefeed.BookChangeSender;
+import com.github.sbouclier.javarestbooks.changefeed.BookChangeSubscriber;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Change feed of the catalog, see {@link BookChangeLog}
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(value = "/api/books/changes")
+public class BookChangeController {
+
+    private static final int MAX_POLL_SIZE = 500;
+
+    private static final long MAX_POLL_WAIT_MILLIS = 60000;
+
+    private final BookChangeLog bookChangeLog;
+
+    private final long streamTimeoutMillis;
+
+    public BookChangeController(BookChangeLog bookChangeLog,
+                                @Value("${books.changes.stream-timeout-ms:600000}") long streamTimeoutMillis) {
+        this.bookChangeLog = bookChangeLog;
+        this.streamTimeoutMillis = streamTimeoutMillis;
+    }
+
+    /**
+     * Long poll: the changes after {@code since}, at once when there are some, otherwise the next change within
+     * {@code wait} milliseconds. The X-Last-Sequence header gives the {@code since} of the next poll.
+     */
+    @GetMapping
+    public DeferredResult<ResponseEntity<List<BookChange>>> pollChanges(
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false, defaultValue = "30000") long wait,
+            @RequestParam(required = false, defaultValue = "100") int size) {
+        final long sequence = since != null ? since : bookChangeLog.lastSequence();
+        final int limit = Math.min(Math.max(size, 1), MAX_POLL_SIZE);
+
+        final DeferredResult<ResponseEntity<List<BookChange>>> result = new DeferredResult<>(
+                Math.min(Math.max(wait, 1), MAX_POLL_WAIT_MILLIS), changesResponse(sequence, Collections.emptyList()));
+        final Runnable waiter = () -> result.setResult(changesResponse(sequence, bookChangeLog.since(sequence, limit)));
+        if (wait > 0 && bookChangeLog.await(sequence, waiter)) {
+            result.onCompletion(() -> bookChangeLog.cancel(waiter));
+        } else {
+            result.setResult(changesResponse(sequence, bookChangeLog.since(sequence, limit)));
+        }
+        return result;
+    }
+
+    /**
+     * Server-sent events: the changes after {@code since} (or the Last-Event-ID of a reconnection), then every new
+     * change. Each event holds a batch of changes, its id is the sequence of the last one; a consumer slower than
+     * the writes gets compacted batches with only the last change of each book.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        final long sequence = lastEventId != null ? lastEventId : since != null ? since : bookChangeLog.lastSequence();
+
+        final SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        final BookChangeSubscriber subscriber = bookChangeLog.subscribe(sequence, new BookChangeSender() {
+            @Override
+            public void send(List<BookChange> changes) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(changes.get(changes.size() - 1).getSequence()))
+                        .name("changes")
+                        .data(changes, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        // also called after a timeout or a network error
+        emitter.onCompletion(subscriber::cancel);
+        return emitter;
+    }
+
+    private static ResponseEntity<List<BookChange>> changesResponse(long since, List<BookChange> changes) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Last-Sequence",
+                String.valueOf(changes.isEmpty() ? since : changes.get(changes.size() - 1).getSequence()));
+        return new ResponseEntity<>(changes, headers, HttpStatus.OK);
+    }
+}
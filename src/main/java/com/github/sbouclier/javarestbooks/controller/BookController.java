@@ -1,9 +1,25 @@
 package com.github.sbouclier.javarestbooks.controller;
 
+import com.github.sbouclier.javarestbooks.cache.BookCache;
+import com.github.sbouclier.javarestbooks.cache.BookJson;
+import com.github.sbouclier.javarestbooks.cache.BookJsonCache;
+import com.github.sbouclier.javarestbooks.cache.CatalogRevision;
+import com.github.sbouclier.javarestbooks.datasource.ReplicaReadContext;
 import com.github.sbouclier.javarestbooks.domain.Book;
-import com.github.sbouclier.javarestbooks.exception.BookIsbnAlreadyExistsException;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.dto.BookLookup;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
 import com.github.sbouclier.javarestbooks.exception.BookNotFoundException;
+import com.github.sbouclier.javarestbooks.exception.InvalidLookupException;
+import com.github.sbouclier.javarestbooks.exception.InvalidSortException;
+import com.github.sbouclier.javarestbooks.repository.BookCursor;
+import com.github.sbouclier.javarestbooks.repository.BookFields;
+import com.github.sbouclier.javarestbooks.repository.BookFilter;
 import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -16,7 +32,16 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import javax.validation.Valid;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.springframework.web.util.UriComponentsBuilder.fromUriString;
 
@@ -27,23 +52,47 @@ import static org.springframework.web.util.UriComponentsBuilder.fromUriString;
  *
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping(value = "/api/books")
 public class BookController {
 
     private static final int MAX_PAGE_SIZE = 50;
 
+    private static final List<String> LINK_HEADERS = Arrays.asList("first", "last", "next", "prev");
+
+    private static final int MAX_LOOKUP_SIZE = 200;
+
+    // attempts of a description update against concurrent writes of the same book
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final BookRepository bookRepository;
 
-    public BookController(BookRepository bookRepository) {
+    private final BookCache bookCache;
+
+    private final BookJsonCache bookJsonCache;
+
+    private final CatalogRevision catalogRevision;
+
+    private final DescriptionWriteQueue descriptionWriteQueue;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookController(BookRepository bookRepository, BookCache bookCache, BookJsonCache bookJsonCache,
+                          CatalogRevision catalogRevision, DescriptionWriteQueue descriptionWriteQueue,
+                          ApplicationEventPublisher eventPublisher) {
         this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.bookJsonCache = bookJsonCache;
+        this.catalogRevision = catalogRevision;
+        this.descriptionWriteQueue = descriptionWriteQueue;
+        this.eventPublisher = eventPublisher;
     }
 
     @PostMapping
     public ResponseEntity<?> createBook(@Valid @RequestBody Book book, UriComponentsBuilder ucBuilder) {
-        if (bookRepository.findByIsbn(book.getIsbn()).isPresent()) {
-            throw new BookIsbnAlreadyExistsException(book.getIsbn());
-        }
-        bookRepository.save(book);
+        // a single insert, the uk_book_isbn and uk_book_isbn_key constraints reject duplicates
+        bookRepository.insert(book);
+        eventPublisher.publishEvent(BookEvent.created(book));
 
         HttpHeaders headers = new HttpHeaders();
         headers.setLocation(ucBuilder.path("/api/books/{isbn}").buildAndExpand(book.getIsbn()).toUri());
@@ -51,24 +100,221 @@ public class BookController {
     }
 
     @GetMapping("/{isbn}")
-    public ResponseEntity<Book> getBook(@PathVariable("isbn") String isbn) {
-        return bookRepository.findByIsbn(isbn)
-                .map(book -> new ResponseEntity<>(book, HttpStatus.OK))
+    public ResponseEntity<?> getBook(@PathVariable("isbn") String isbn,
+                                     @RequestParam(required = false) String fields,
+                                     @RequestHeader HttpHeaders requestHeaders) {
+        final BookFields bookFields = fields != null ? BookFields.parse(fields) : null;
+        if (!requestHeaders.getIfNoneMatch().isEmpty()) {
+            // validate with the cached book or the book version only, neither authors nor JSON are needed
+            final Optional<Book> cachedBook = bookCache.peek(isbn);
+            final Optional<String> etag = cachedBook.isPresent()
+                    ? cachedBook.map(book -> etagOf(book.getId(), book.getVersion()))
+                    : bookRepository.findVersionByNormalizedIsbn(isbn).map(version -> etagOf(version.getId(),
+                            descriptionWriteQueue.version(version.getId(), version.getVersion())));
+
+            if (etag.isPresent() && isNotModified(requestHeaders, etag.get())) {
+                return notModified(etag.get());
+            }
+        }
+
+        if (bookFields != null) {
+            return bookCache.findByIsbn(isbn)
+                    .map(book -> new ResponseEntity<>(bookFields.of(book), etagHeaders(book), HttpStatus.OK))
+                    .orElseThrow(() -> new BookNotFoundException(isbn));
+        }
+
+        // serialized once, then written as is (see BookJsonHttpMessageConverter)
+        final boolean acceptsGzip = requestHeaders.getOrDefault(HttpHeaders.ACCEPT_ENCODING, Collections.emptyList())
+                .stream().anyMatch(encoding -> encoding.contains("gzip"));
+        return bookJsonCache.findByIsbn(isbn)
+                .map(json -> {
+                    final BookJson body = json.encoded(acceptsGzip);
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setETag(etagOf(json.getId(), json.getVersion()));
+                    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                    if (body.isGzip()) {
+                        headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+                    }
+                    return new ResponseEntity<>(body, headers, HttpStatus.OK);
+                })
                 .orElseThrow(() -> new BookNotFoundException(isbn));
     }
 
+    /**
+     * With {@code fields}, only the requested columns are selected and written, authors are read only when requested.
+     * With {@code publisher}, {@code author} (last name) or {@code titlePrefix}, only the matching books are listed.
+     */
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks(
+    public ResponseEntity<?> getAllBooks(
             @PageableDefault(size = MAX_PAGE_SIZE) Pageable pageable,
             @RequestParam(required = false, defaultValue = "id") String sort,
-            @RequestParam(required = false, defaultValue = "asc") String order) {
+            @RequestParam(required = false, defaultValue = "asc") String order,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String publisher,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String titlePrefix,
+            @RequestHeader HttpHeaders requestHeaders) {
+        final BookFields bookFields = fields != null ? BookFields.parse(fields) : null;
+        final BookFilter filter = BookFilter.of(publisher, author, titlePrefix);
+
+        // any write changes the catalog revision, a matching client is answered without querying books
+        final String revision = catalogRevision.etag();
+        if (isNotModified(requestHeaders, revision)) {
+            return notModified(revision);
+        }
+        // a replica may lag behind the revision, its pages are not tagged with it
+        final String etag = ReplicaReadContext.isReplicaAllowed() ? null : revision;
+
+        final Sort.Direction direction = "asc" .equals(order) ? Sort.Direction.ASC : Sort.Direction.DESC;
+
+        if (after != null) {
+            final BookCursor cursor = after.isEmpty() ? BookCursor.first(sort, direction) : BookCursor.decode(after);
+            return getBooksAfter(filter, cursor, pageable.getPageSize(), bookFields, etag);
+        }
+
         final PageRequest pr = PageRequest.of(
                 pageable.getPageNumber(), pageable.getPageSize(),
-                Sort.by("asc" .equals(order) ? Sort.Direction.ASC : Sort.Direction.DESC, sort)
+                sortOf(sort, direction)
         );
 
-        Page<Book> booksPage = bookRepository.findAll(pr);
+        if (bookFields != null) {
+            return withFields(withFilter(pageResponse(overlay(bookRepository.findAll(filter, pr, bookFields)), etag),
+                    filter), bookFields);
+        }
+        return withFilter(pageResponse(overlay(bookRepository.findAll(filter, pr)), etag), filter);
+    }
+
+    /**
+     * Keyset pagination: seek after the cursor position, the next cursor is given in the "next" header
+     * and no count query is issued.
+     */
+    private ResponseEntity<?> getBooksAfter(BookFilter filter, BookCursor cursor, int size, BookFields fields, String etag) {
+        // one extra book tells whether a next page exists
+        if (fields != null) {
+            return withFields(withFilter(cursorPageResponse(overlay(bookRepository.findAllAfter(filter, cursor, size + 1,
+                    fields)), cursor, size, etag), filter), fields);
+        }
+        return withFilter(cursorPageResponse(overlay(bookRepository.findAllAfter(filter, cursor, size + 1)), cursor, size,
+                etag), filter);
+    }
+
+    /**
+     * Pages are read from the database, descriptions accepted by the write-behind queue are not written there yet
+     */
+    private Page<Book> overlay(Page<Book> books) {
+        return books.map(descriptionWriteQueue::overlay);
+    }
+
+    private List<Book> overlay(List<Book> books) {
+        return books.stream().map(descriptionWriteQueue::overlay).collect(Collectors.toList());
+    }
+
+    /**
+     * Several books at once with {@code ?isbn=a,b,c}: cached books are served from the cache, the others are read
+     * with their authors in a single query.
+     */
+    @GetMapping(params = "isbn")
+    public ResponseEntity<BookLookup> getBooksByIsbn(@RequestParam("isbn") List<String> isbns) {
+        return new ResponseEntity<>(lookup(isbns), HttpStatus.OK);
+    }
+
+    /**
+     * Same as {@code ?isbn=...} for lists of ISBNs too long for a URL, given as a JSON array
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<BookLookup> lookupBooks(@RequestBody List<String> isbns) {
+        return new ResponseEntity<>(lookup(isbns), HttpStatus.OK);
+    }
+
+    /**
+     * Books found in the requested order, each once, and the ISBNs not found
+     */
+    private BookLookup lookup(List<String> isbns) {
+        final Set<String> requested = new LinkedHashSet<>(isbns);
+        if (requested.size() > MAX_LOOKUP_SIZE) {
+            throw new InvalidLookupException(requested.size(), MAX_LOOKUP_SIZE);
+        }
+
+        final Map<String, Book> found = bookCache.findAllByIsbn(requested);
+        final Set<String> seen = new HashSet<>();
+        final List<Book> books = new ArrayList<>(found.size());
+        final List<String> missing = new ArrayList<>();
+        for (String isbn : requested) {
+            final String key = Isbn.canonical(isbn);
+            final Book book = found.get(key);
+            if (book == null) {
+                missing.add(isbn);
+            } else if (seen.add(key)) {
+                // the same book requested with and without hyphens
+                books.add(book);
+            }
+        }
+        return new BookLookup(books, missing);
+    }
+
+    @PutMapping("/{isbn}")
+    public ResponseEntity<Book> updateBook(@PathVariable("isbn") String isbn, @Valid @RequestBody Book book) {
+        return bookRepository.findByNormalizedIsbn(isbn)
+                .map(bookToUpdate -> {
+                    final String previousIsbn = bookToUpdate.getIsbn();
+                    bookToUpdate.setIsbn(book.getIsbn());
+                    bookToUpdate.setTitle(book.getTitle());
+                    bookToUpdate.setDescription(book.getDescription());
+                    bookToUpdate.setAuthors(book.getAuthors());
+                    bookToUpdate.setPublisher(book.getPublisher());
+                    final Book updatedBook = bookRepository.update(bookToUpdate);
+                    eventPublisher.publishEvent(BookEvent.updated(previousIsbn, updatedBook));
+
+                    return new ResponseEntity<>(updatedBook, etagHeaders(updatedBook), HttpStatus.OK);
+                })
+                .orElseThrow(() -> new BookNotFoundException(isbn));
+    }
+
+    /**
+     * The cached book gives the id and version, the description is then written with a single conditional update.
+     * A book changed since it was cached is read again from the database.
+     *
+     * With the write-behind queue the description is accepted (202) once logged and written later, coalesced with
+     * the next updates of the book.
+     */
+    @PatchMapping("/{isbn}")
+    public ResponseEntity<Book> updateBookDescription(@PathVariable("isbn") String isbn, @RequestBody String description) {
+        for (int attempt = 1; ; attempt++) {
+            final Book book = bookCache.findByIsbn(isbn).orElseThrow(() -> new BookNotFoundException(isbn));
+            if (descriptionWriteQueue.isEnabled()) {
+                final Optional<Book> acceptedBook = descriptionWriteQueue.enqueue(book, description);
+                if (acceptedBook.isPresent()) {
+                    return new ResponseEntity<>(acceptedBook.get(), etagHeaders(acceptedBook.get()), HttpStatus.ACCEPTED);
+                }
+            } else if (bookRepository.updateDescription(book.getId(), book.getVersion(), description) == 1) {
+                final Book updatedBook = book.withDescription(description);
+                eventPublisher.publishEvent(BookEvent.updated(book.getIsbn(), updatedBook));
 
+                return new ResponseEntity<>(updatedBook, etagHeaders(updatedBook), HttpStatus.OK);
+            }
+            if (attempt == MAX_UPDATE_ATTEMPTS) {
+                throw new OptimisticLockingFailureException("book with ISBN '" + isbn + "' is being updated concurrently");
+            }
+            bookCache.evict(isbn);
+        }
+    }
+
+    @DeleteMapping("/{isbn}")
+    public ResponseEntity<?> deleteBook(@PathVariable("isbn") String isbn) {
+        // authors and book are deleted by ISBN, neither is loaded
+        if (bookRepository.deleteByIsbn(isbn) == 0) {
+            throw new BookNotFoundException(isbn);
+        }
+        eventPublisher.publishEvent(BookEvent.deleted(isbn));
+        return new ResponseEntity(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Response of an offset page: pagination links in headers, 206 when the catalog spans several pages.
+     * A null etag leaves the ETag header out.
+     */
+    static ResponseEntity<List<Book>> pageResponse(Page<Book> booksPage, String etag) {
         if (booksPage.getContent().isEmpty()) {
             return new ResponseEntity(HttpStatus.NO_CONTENT);
         } else {
@@ -76,6 +322,9 @@ public class BookController {
             int nbPageBooks = booksPage.getNumberOfElements();
 
             HttpHeaders headers = new HttpHeaders();
+            if (etag != null) {
+                headers.setETag(etag);
+            }
             headers.add("X-Total-Count", String.valueOf(totalBooks));
 
             if (nbPageBooks < totalBooks) {
@@ -97,49 +346,112 @@ public class BookController {
         }
     }
 
-    @PutMapping("/{isbn}")
-    public ResponseEntity<Book> updateBook(@PathVariable("isbn") String isbn, @Valid @RequestBody Book book) {
-        return bookRepository.findByIsbn(isbn)
-                .map(bookToUpdate -> {
-                    bookToUpdate.setIsbn(book.getIsbn());
-                    bookToUpdate.setTitle(book.getTitle());
-                    bookToUpdate.setDescription(book.getDescription());
-                    bookToUpdate.setAuthors(book.getAuthors());
-                    bookToUpdate.setPublisher(book.getPublisher());
-                    bookRepository.save(bookToUpdate);
+    /**
+     * Response of a cursor page read with one extra book, which tells whether a next page exists
+     */
+    static ResponseEntity<List<Book>> cursorPageResponse(List<Book> books, BookCursor cursor, int size, String etag) {
+        if (books.isEmpty()) {
+            return new ResponseEntity(HttpStatus.NO_CONTENT);
+        }
 
-                    return new ResponseEntity<>(bookToUpdate, HttpStatus.OK);
-                })
-                .orElseThrow(() -> new BookNotFoundException(isbn));
+        final boolean hasNext = books.size() > size;
+        final List<Book> pageBooks = hasNext ? books.subList(0, size) : books;
+
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        if (hasNext) {
+            headers.add("next", buildCursorUri(cursor.after(pageBooks.get(size - 1)), size));
+        }
+
+        if (hasNext || !cursor.isFirst()) {
+            return new ResponseEntity<>(pageBooks, headers, HttpStatus.PARTIAL_CONTENT);
+        } else {
+            return new ResponseEntity<>(pageBooks, headers, HttpStatus.OK);
+        }
     }
 
-    @PatchMapping("/{isbn}")
-    public ResponseEntity<Book> updateBookDescription(@PathVariable("isbn") String isbn, @RequestBody String description) {
-        return bookRepository.findByIsbn(isbn)
-                .map(book -> {
-                    book.setDescription(description);
-                    bookRepository.save(book);
+    /**
+     * Same response with the requested fields of each book, links keep the fieldset
+     */
+    static ResponseEntity<List<Map<String, Object>>> withFields(ResponseEntity<List<Book>> response, BookFields fields) {
+        final HttpHeaders headers = new HttpHeaders();
+        response.getHeaders().forEach((name, values) -> {
+            final boolean link = LINK_HEADERS.contains(name);
+            values.forEach(value -> headers.add(name, link ? value + "&fields=" + fields : value));
+        });
 
-                    return new ResponseEntity<>(book, HttpStatus.OK);
-                })
-                .orElseThrow(() -> new BookNotFoundException(isbn));
+        if (response.getBody() == null) {
+            return new ResponseEntity<>(headers, response.getStatusCode());
+        }
+        final List<Map<String, Object>> books = response.getBody().stream().map(fields::of).collect(Collectors.toList());
+        return new ResponseEntity<>(books, headers, response.getStatusCode());
     }
 
-    @DeleteMapping("/{isbn}")
-    public ResponseEntity<?> deleteBook(@PathVariable("isbn") String isbn) {
-        return bookRepository.findByIsbn(isbn)
-                .map(book -> {
-                    bookRepository.delete(book);
-                    return new ResponseEntity(HttpStatus.NO_CONTENT);
-                })
-                .orElseThrow(() -> new BookNotFoundException(isbn));
+    /**
+     * Same response, links keep the filter
+     */
+    static <T> ResponseEntity<T> withFilter(ResponseEntity<T> response, BookFilter filter) {
+        if (filter.isEmpty()) {
+            return response;
+        }
+        final String query = filter.toQueryString();
+        final HttpHeaders headers = new HttpHeaders();
+        response.getHeaders().forEach((name, values) -> {
+            final boolean link = LINK_HEADERS.contains(name);
+            values.forEach(value -> headers.add(name, link ? value + "&" + query : value));
+        });
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    /**
+     * Sort of an offset page on one of the indexed columns, the id breaks ties as with cursors
+     */
+    static Sort sortOf(String sort, Sort.Direction direction) {
+        if (!BookCursor.SORTABLE_FIELDS.contains(sort)) {
+            throw new InvalidSortException(sort);
+        }
+        return "id".equals(sort) ? Sort.by(direction, sort) : Sort.by(direction, sort, "id");
     }
 
-    private String buildPageUri(Pageable page) {
+    static String etagOf(Long id, Long version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    static HttpHeaders etagHeaders(Book book) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etagOf(book.getId(), book.getVersion()));
+        return headers;
+    }
+
+    /**
+     * Weak comparison of If-None-Match entity tags, as required for GET requests
+     */
+    static boolean isNotModified(HttpHeaders requestHeaders, String etag) {
+        return requestHeaders.getIfNoneMatch().stream()
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals(etag) || tag.equals("*"));
+    }
+
+    static <T> ResponseEntity<T> notModified(String etag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        return new ResponseEntity<>(headers, HttpStatus.NOT_MODIFIED);
+    }
+
+    static String buildPageUri(Pageable page) {
         return fromUriString("/api/books")
                 .query("page={page}&size={size}")
                 .buildAndExpand(page.getPageNumber(), page.getPageSize())
                 .toUriString();
     }
 
+    static String buildCursorUri(BookCursor cursor, int size) {
+        return fromUriString("/api/books")
+                .query("after={after}&size={size}")
+                .buildAndExpand(cursor.encode(), size)
+                .toUriString();
+    }
+
 }
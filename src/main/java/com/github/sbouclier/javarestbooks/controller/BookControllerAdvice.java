@@ -2,8 +2,19 @@ package com.github.sbouclier.javarestbooks.controller;
 
 import com.github.sbouclier.javarestbooks.exception.BookIsbnAlreadyExistsException;
 import com.github.sbouclier.javarestbooks.exception.BookNotFoundException;
+import com.github.sbouclier.javarestbooks.exception.DatabaseBusyException;
+import com.github.sbouclier.javarestbooks.exception.InvalidBatchException;
+import com.github.sbouclier.javarestbooks.exception.InvalidCursorException;
+import com.github.sbouclier.javarestbooks.exception.InvalidDescriptionException;
+import com.github.sbouclier.javarestbooks.exception.InvalidFieldsException;
+import com.github.sbouclier.javarestbooks.exception.InvalidLookupException;
+import com.github.sbouclier.javarestbooks.exception.InvalidSequenceException;
+import com.github.sbouclier.javarestbooks.exception.InvalidSortException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.hateoas.VndErrors;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 @ControllerAdvice
@@ -23,4 +34,67 @@ public class BookControllerAdvice {
     VndErrors bookIsbnAlreadyExistsExceptionHandler(BookIsbnAlreadyExistsException ex) {
         return new VndErrors("error", ex.getMessage());
     }
+
+    @ResponseBody
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    VndErrors optimisticLockingFailureExceptionHandler(OptimisticLockingFailureException ex) {
+        return new VndErrors("error", "book was updated concurrently, retry the request");
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidCursorException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    VndErrors invalidCursorExceptionHandler(InvalidCursorException ex) {
+        return new VndErrors("error", ex.getMessage());
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidSortException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    VndErrors invalidSortExceptionHandler(InvalidSortException ex) {
+        return new VndErrors("error", ex.getMessage());
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidFieldsException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    VndErrors invalidFieldsExceptionHandler(InvalidFieldsException ex) {
+        return new VndErrors("error", ex.getMessage());
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidDescriptionException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    VndErrors invalidDescriptionExceptionHandler(InvalidDescriptionException ex) {
+        return new VndErrors("error", ex.getMessage());
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidBatchException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    VndErrors invalidBatchExceptionHandler(InvalidBatchException ex) {
+        return new VndErrors("error", ex.getMessage());
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidLookupException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    VndErrors invalidLookupExceptionHandler(InvalidLookupException ex) {
+        return new VndErrors("error", ex.getMessage());
+    }
+
+    @ResponseBody
+    @ExceptionHandler(InvalidSequenceException.class)
+    @ResponseStatus(HttpStatus.GONE)
+    VndErrors invalidSequenceExceptionHandler(InvalidSequenceException ex) {
+        return new VndErrors("error", ex.getMessage());
+    }
+
+    @ExceptionHandler(DatabaseBusyException.class)
+    ResponseEntity<VndErrors> databaseBusyExceptionHandler(DatabaseBusyException ex) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(new VndErrors("error", ex.getMessage()), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
@@ -0,0 +1,59 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.cache.BookJson;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Write the cached JSON of a book as is, with its Content-Length
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class BookJsonHttpMessageConverter extends AbstractHttpMessageConverter<BookJson> {
+
+    public BookJsonHttpMessageConverter() {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return BookJson.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected BookJson readInternal(Class<? extends BookJson> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("book JSON is written only");
+    }
+
+    @Override
+    protected Long getContentLength(BookJson bookJson, MediaType contentType) {
+        return (long) bookJson.getContentLength();
+    }
+
+    @Override
+    protected void writeInternal(BookJson bookJson, HttpOutputMessage outputMessage) throws IOException {
+        final ByteBuffer content = bookJson.getContent();
+        final OutputStream body = outputMessage.getBody();
+        if (content.hasArray()) {
+            body.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+        } else {
+            Channels.newChannel(body).write(content);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.search.BookFacets;
+import com.github.sbouclier.javarestbooks.search.BookSearchIndex;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.web.util.UriComponentsBuilder.fromUriString;
+
+/**
+ * Book search controller
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequestMapping(value = "/api/books")
+public class BookSearchController {
+
+    private static final int MAX_PAGE_SIZE = 50;
+
+    // counts of each facet in a response
+    private static final int MAX_FACET_COUNTS = 1000;
+
+    private final BookRepository bookRepository;
+
+    private final BookSearchIndex bookSearchIndex;
+
+    private final BookFacets bookFacets;
+
+    private final DescriptionWriteQueue descriptionWriteQueue;
+
+    public BookSearchController(BookRepository bookRepository, BookSearchIndex bookSearchIndex, BookFacets bookFacets,
+                                DescriptionWriteQueue descriptionWriteQueue) {
+        this.bookRepository = bookRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookFacets = bookFacets;
+        this.descriptionWriteQueue = descriptionWriteQueue;
+    }
+
+    /**
+     * Full-text search, ranked from the in-memory index: only the books of the requested page are read from the database.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Book>> searchBooks(
+            @RequestParam("q") String query,
+            @PageableDefault(size = MAX_PAGE_SIZE) Pageable pageable) {
+        final List<String> isbns = bookSearchIndex.search(query);
+
+        final int from = (int) Math.min(pageable.getOffset(), isbns.size());
+        final int to = Math.min(from + pageable.getPageSize(), isbns.size());
+        final List<String> pageIsbns = isbns.subList(from, to);
+
+        if (pageIsbns.isEmpty()) {
+            return new ResponseEntity(HttpStatus.NO_CONTENT);
+        }
+
+        // keep the rank order, books deleted since the search are dropped
+        final Map<String, Book> booksByIsbn = bookRepository.findByIsbnIn(pageIsbns).stream()
+                .collect(Collectors.toMap(Book::getIsbn, Function.identity()));
+        final List<Book> books = new ArrayList<>(pageIsbns.size());
+        for (String isbn : pageIsbns) {
+            final Book book = booksByIsbn.get(isbn);
+            if (book != null) {
+                // books are read from the database, descriptions accepted by the write-behind queue are not there yet
+                books.add(descriptionWriteQueue.overlay(book));
+            }
+        }
+
+        final Page<Book> booksPage = new PageImpl<>(books, pageable, isbns.size());
+        final long totalBooks = booksPage.getTotalElements();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.add("X-Total-Count", String.valueOf(totalBooks));
+
+        if (pageIsbns.size() < totalBooks) {
+            headers.add("first", buildSearchUri(query, PageRequest.of(0, pageable.getPageSize())));
+            headers.add("last", buildSearchUri(query, PageRequest.of(booksPage.getTotalPages() - 1, pageable.getPageSize())));
+
+            if (booksPage.hasNext()) {
+                headers.add("next", buildSearchUri(query, booksPage.nextPageable()));
+            }
+
+            if (booksPage.hasPrevious()) {
+                headers.add("prev", buildSearchUri(query, booksPage.previousPageable()));
+            }
+
+            return new ResponseEntity<>(books, headers, HttpStatus.PARTIAL_CONTENT);
+        } else {
+            return new ResponseEntity<>(books, headers, HttpStatus.OK);
+        }
+    }
+
+    /**
+     * Number of books per publisher and per author, most books first, from the in-memory counts of BookFacets.
+     * {@code publisher} and {@code author} (last name) narrow the counts as the filters of the book list.
+     */
+    @GetMapping("/facets")
+    public Map<String, Object> getFacets(
+            @RequestParam(required = false) String publisher,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false, defaultValue = "" + MAX_FACET_COUNTS) int limit) {
+        final int maxCounts = Math.max(0, Math.min(limit, MAX_FACET_COUNTS));
+
+        final List<Map<String, Object>> publishers = new ArrayList<>();
+        for (Map.Entry<String, Long> count : bookFacets.publishers(publisher, maxCounts)) {
+            final Map<String, Object> publisherCount = new LinkedHashMap<>();
+            publisherCount.put("publisher", count.getKey());
+            publisherCount.put("count", count.getValue());
+            publishers.add(publisherCount);
+        }
+
+        final List<Map<String, Object>> authors = new ArrayList<>();
+        for (Map.Entry<Author, Long> count : bookFacets.authors(author, maxCounts)) {
+            final Map<String, Object> authorCount = new LinkedHashMap<>();
+            authorCount.put("firstName", count.getKey().getFirstName());
+            authorCount.put("lastName", count.getKey().getLastName());
+            authorCount.put("count", count.getValue());
+            authors.add(authorCount);
+        }
+
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("publishers", publishers);
+        body.put("authors", authors);
+        return body;
+    }
+
+    private String buildSearchUri(String query, Pageable page) {
+        return fromUriString("/api/books/search")
+                .query("q={q}&page={page}&size={size}")
+                .buildAndExpand(query, page.getPageNumber(), page.getPageSize())
+                .encode()
+                .toUriString();
+    }
+}
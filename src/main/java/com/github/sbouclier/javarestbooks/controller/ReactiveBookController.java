@@ -0,0 +1,165 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.cache.BookCache;
+import com.github.sbouclier.javarestbooks.cache.CatalogRevision;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.exception.BookNotFoundException;
+import com.github.sbouclier.javarestbooks.reactive.ReactiveBookRepository;
+import com.github.sbouclier.javarestbooks.repository.BookCursor;
+import com.github.sbouclier.javarestbooks.repository.BookFields;
+import com.github.sbouclier.javarestbooks.repository.BookFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.util.Optional;
+
+import static com.github.sbouclier.javarestbooks.controller.BookController.cursorPageResponse;
+import static com.github.sbouclier.javarestbooks.controller.BookController.etagHeaders;
+import static com.github.sbouclier.javarestbooks.controller.BookController.etagOf;
+import static com.github.sbouclier.javarestbooks.controller.BookController.isNotModified;
+import static com.github.sbouclier.javarestbooks.controller.BookController.notModified;
+import static com.github.sbouclier.javarestbooks.controller.BookController.pageResponse;
+import static com.github.sbouclier.javarestbooks.controller.BookController.sortOf;
+import static com.github.sbouclier.javarestbooks.controller.BookController.withFields;
+import static com.github.sbouclier.javarestbooks.controller.BookController.withFilter;
+
+/**
+ * Reactive book controller, same API and responses as {@link BookController} without blocking the event loop
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping(value = "/api/books")
+public class ReactiveBookController {
+
+    // bounds of the Pageable of BookController
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final int MAX_PAGE_SIZE = 2000;
+
+    private final ReactiveBookRepository bookRepository;
+
+    private final BookCache bookCache;
+
+    private final CatalogRevision catalogRevision;
+
+    public ReactiveBookController(ReactiveBookRepository bookRepository, BookCache bookCache,
+                                  CatalogRevision catalogRevision) {
+        this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.catalogRevision = catalogRevision;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<?>> createBook(@Valid @RequestBody Book book, ServerHttpRequest request) {
+        return bookRepository.create(book)
+                .map(createdBook -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    headers.setLocation(UriComponentsBuilder.fromHttpRequest(request)
+                            .replacePath("/api/books/{isbn}").replaceQuery(null)
+                            .buildAndExpand(createdBook.getIsbn()).toUri());
+                    return new ResponseEntity<>(headers, HttpStatus.CREATED);
+                });
+    }
+
+    @GetMapping("/{isbn}")
+    public Mono<ResponseEntity<?>> getBook(@PathVariable("isbn") String isbn,
+                                           @RequestParam(required = false) String fields,
+                                           @RequestHeader HttpHeaders requestHeaders) {
+        final BookFields bookFields = fields != null ? BookFields.parse(fields) : null;
+        final Mono<ResponseEntity<?>> book = bookRepository.findByIsbn(isbn)
+                .<ResponseEntity<?>>map(foundBook -> new ResponseEntity<>(
+                        bookFields != null ? bookFields.of(foundBook) : foundBook, etagHeaders(foundBook), HttpStatus.OK))
+                .switchIfEmpty(Mono.error(new BookNotFoundException(isbn)));
+        if (requestHeaders.getIfNoneMatch().isEmpty()) {
+            return book;
+        }
+
+        // validate with the cached book or the book version only, neither authors nor JSON are needed
+        final Optional<Book> cachedBook = bookCache.peek(isbn);
+        final Mono<String> etag = cachedBook.isPresent()
+                ? Mono.just(etagOf(cachedBook.get().getId(), cachedBook.get().getVersion()))
+                : bookRepository.findVersionByIsbn(isbn).map(version -> etagOf(version.getId(), version.getVersion()));
+
+        return etag
+                .filter(currentEtag -> isNotModified(requestHeaders, currentEtag))
+                .<ResponseEntity<?>>map(BookController::notModified)
+                .switchIfEmpty(book);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<?>> getAllBooks(
+            @RequestParam(required = false, defaultValue = "0") int page,
+            @RequestParam(required = false, defaultValue = "50") int size,
+            @RequestParam(required = false, defaultValue = "id") String sort,
+            @RequestParam(required = false, defaultValue = "asc") String order,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String publisher,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String titlePrefix,
+            @RequestHeader HttpHeaders requestHeaders) {
+        final BookFields bookFields = fields != null ? BookFields.parse(fields) : null;
+        final BookFilter filter = BookFilter.of(publisher, author, titlePrefix);
+
+        // any write changes the catalog revision, a matching client is answered without querying books
+        final String etag = catalogRevision.etag();
+        if (isNotModified(requestHeaders, etag)) {
+            return Mono.just(notModified(etag));
+        }
+
+        final Sort.Direction direction = "asc" .equals(order) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        // out of bounds values fall back like a Pageable: first page, default size, at most MAX_PAGE_SIZE books
+        final int pageNumber = Math.max(page, 0);
+        final int pageSize = size < 1 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
+
+        if (after != null) {
+            final BookCursor cursor = after.isEmpty() ? BookCursor.first(sort, direction) : BookCursor.decode(after);
+            // one extra book tells whether a next page exists
+            if (bookFields != null) {
+                return bookRepository.findAllAfter(filter, cursor, pageSize + 1, bookFields)
+                        .map(books -> withFields(withFilter(cursorPageResponse(books, cursor, pageSize, etag), filter),
+                                bookFields));
+            }
+            return bookRepository.findAllAfter(filter, cursor, pageSize + 1)
+                    .map(books -> withFilter(cursorPageResponse(books, cursor, pageSize, etag), filter));
+        }
+
+        final PageRequest pageRequest = PageRequest.of(pageNumber, pageSize, sortOf(sort, direction));
+        if (bookFields != null) {
+            return bookRepository.findAll(filter, pageRequest, bookFields)
+                    .map(booksPage -> withFields(withFilter(pageResponse(booksPage, etag), filter), bookFields));
+        }
+        return bookRepository.findAll(filter, pageRequest)
+                .map(booksPage -> withFilter(pageResponse(booksPage, etag), filter));
+    }
+
+    @PutMapping("/{isbn}")
+    public Mono<ResponseEntity<Book>> updateBook(@PathVariable("isbn") String isbn, @Valid @RequestBody Book book) {
+        return bookRepository.update(isbn, book)
+                .map(updatedBook -> new ResponseEntity<>(updatedBook, etagHeaders(updatedBook), HttpStatus.OK))
+                .switchIfEmpty(Mono.error(new BookNotFoundException(isbn)));
+    }
+
+    @PatchMapping("/{isbn}")
+    public Mono<ResponseEntity<Book>> updateBookDescription(@PathVariable("isbn") String isbn, @RequestBody String description) {
+        return bookRepository.updateDescription(isbn, description)
+                .map(updatedBook -> new ResponseEntity<>(updatedBook, etagHeaders(updatedBook), HttpStatus.OK))
+                .switchIfEmpty(Mono.error(new BookNotFoundException(isbn)));
+    }
+
+    @DeleteMapping("/{isbn}")
+    public Mono<ResponseEntity<?>> deleteBook(@PathVariable("isbn") String isbn) {
+        return bookRepository.delete(isbn)
+                .<ResponseEntity<?>>map(deletedIsbn -> new ResponseEntity(HttpStatus.NO_CONTENT))
+                .switchIfEmpty(Mono.error(new BookNotFoundException(isbn)));
+    }
+}
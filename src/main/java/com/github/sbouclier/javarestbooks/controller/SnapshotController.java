@@ -0,0 +1,52 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.dto.SnapshotReport;
+import com.github.sbouclier.javarestbooks.snapshot.CatalogSnapshot;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Catalog snapshot controller
+ */
+@RestController
+@RequestMapping(value = "/api/snapshot")
+public class SnapshotController {
+
+    private final CatalogSnapshot catalogSnapshot;
+
+    private final DescriptionWriteQueue descriptionWriteQueue;
+
+    public SnapshotController(CatalogSnapshot catalogSnapshot, DescriptionWriteQueue descriptionWriteQueue) {
+        this.catalogSnapshot = catalogSnapshot;
+        this.descriptionWriteQueue = descriptionWriteQueue;
+    }
+
+    /**
+     * Startup load and last save of the snapshot, a null load means the catalog was seeded from import.sql
+     */
+    @GetMapping
+    public Map<String, Object> getSnapshot() {
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("enabled", catalogSnapshot.isEnabled());
+        body.put("file", catalogSnapshot.getFile().toString());
+        body.put("load", catalogSnapshot.getLastLoad());
+        body.put("save", catalogSnapshot.getLastSave());
+        return body;
+    }
+
+    /**
+     * Save the catalog now, whether snapshots are enabled at startup or not
+     */
+    @PostMapping
+    public SnapshotReport saveSnapshot() throws IOException {
+        descriptionWriteQueue.flush();
+        return catalogSnapshot.save();
+    }
+}
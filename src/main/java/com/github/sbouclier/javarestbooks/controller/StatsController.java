@@ -0,0 +1,117 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.github.sbouclier.javarestbooks.cache.BookCache;
+import com.github.sbouclier.javarestbooks.cache.BookJsonCache;
+import com.github.sbouclier.javarestbooks.cache.IsbnFilter;
+import com.github.sbouclier.javarestbooks.metrics.BookMetrics;
+import com.github.sbouclier.javarestbooks.metrics.LatencyHistogram;
+import com.github.sbouclier.javarestbooks.metrics.OperationMetrics;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Stats controller
+ */
+@RestController
+@RequestMapping(value = "/api/stats")
+public class StatsController {
+
+    private final BookCache bookCache;
+
+    private final BookJsonCache bookJsonCache;
+
+    private final IsbnFilter isbnFilter;
+
+    private final BookMetrics bookMetrics;
+
+    private final DescriptionWriteQueue descriptionWriteQueue;
+
+    public StatsController(BookCache bookCache, BookJsonCache bookJsonCache, IsbnFilter isbnFilter,
+                           BookMetrics bookMetrics, DescriptionWriteQueue descriptionWriteQueue) {
+        this.bookCache = bookCache;
+        this.bookJsonCache = bookJsonCache;
+        this.isbnFilter = isbnFilter;
+        this.bookMetrics = bookMetrics;
+        this.descriptionWriteQueue = descriptionWriteQueue;
+    }
+
+    @GetMapping("/cache")
+    public Map<String, Object> getCacheStats() {
+        final CacheStats stats = bookCache.stats();
+
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", bookCache.size());
+        body.put("hitCount", stats.hitCount());
+        body.put("missCount", stats.missCount());
+        body.put("hitRate", stats.hitRate());
+        body.put("evictionCount", stats.evictionCount());
+        body.put("loadSuccessCount", stats.loadSuccessCount());
+        body.put("loadFailureCount", stats.loadFailureCount());
+        body.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+        final CacheStats jsonStats = bookJsonCache.stats();
+        body.put("jsonSize", bookJsonCache.size());
+        body.put("jsonBytes", bookJsonCache.weightedSize());
+        body.put("jsonHitCount", jsonStats.hitCount());
+        body.put("jsonMissCount", jsonStats.missCount());
+        body.put("jsonEvictionCount", jsonStats.evictionCount());
+        body.put("isbnFilterSize", isbnFilter.size());
+        body.put("isbnFilterRejectionCount", isbnFilter.rejectionCount());
+        return body;
+    }
+
+    /**
+     * All metrics in the Prometheus text format, for scraping
+     */
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String getMetrics() {
+        return bookMetrics.toPrometheus();
+    }
+
+    /**
+     * Latency percentiles, error and persistence counts of each book controller handler
+     */
+    @GetMapping("/endpoints")
+    public Map<String, Object> getEndpointStats() {
+        final Map<String, Object> body = new LinkedHashMap<>();
+        bookMetrics.getHandlers().forEach((handler, metrics) -> body.put(handler, toMap(metrics)));
+        return body;
+    }
+
+    /**
+     * Description updates of the write-behind queue: accepted, written (coalesced in fewer batches) and superseded
+     */
+    @GetMapping("/write-behind")
+    public Map<String, Object> getWriteBehindStats() {
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("enabled", descriptionWriteQueue.isEnabled());
+        body.put("pending", descriptionWriteQueue.size());
+        body.put("acceptedCount", descriptionWriteQueue.acceptedCount());
+        body.put("flushedCount", descriptionWriteQueue.flushedCount());
+        body.put("droppedCount", descriptionWriteQueue.droppedCount());
+        body.put("batchCount", descriptionWriteQueue.batchCount());
+        return body;
+    }
+
+    private static Map<String, Object> toMap(OperationMetrics metrics) {
+        final LatencyHistogram.Snapshot latency = metrics.latency();
+        final long count = latency.getCount();
+
+        final Map<String, Object> body = new LinkedHashMap<>();
+        body.put("count", count);
+        body.put("errorCount", metrics.getErrorCount());
+        body.put("meanMillis", latency.getMeanSeconds() * 1000);
+        body.put("p50Millis", latency.getQuantileSeconds(0.5) * 1000);
+        body.put("p95Millis", latency.getQuantileSeconds(0.95) * 1000);
+        body.put("p99Millis", latency.getQuantileSeconds(0.99) * 1000);
+        body.put("statementsPerRequest", count == 0 ? 0 : (double) metrics.getStatements() / count);
+        body.put("entityLoadsPerRequest", count == 0 ? 0 : (double) metrics.getEntityLoads() / count);
+        body.put("collectionFetchesPerRequest", count == 0 ? 0 : (double) metrics.getCollectionFetches() / count);
+        return body;
+    }
+}
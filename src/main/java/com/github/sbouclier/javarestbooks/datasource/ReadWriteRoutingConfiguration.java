@@ -0,0 +1,85 @@
+package com.github.sbouclier.javarestbooks.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write routing, enabled with books.datasource.replica.enabled=true.
+ *
+ * The primary pool is configured by spring.datasource as before, the replica pool by books.datasource.replica.
+ * Read-only transactions and statements outside transactions of GET requests use the replica
+ * (see {@link ReadWriteRoutingDataSource}), clients who wrote within books.datasource.replica.max-lag-ms read from
+ * the primary (see {@link ReplicaReadInterceptor}). Only the primary pool is instrumented by ConnectionPoolMetrics.
+ */
+@Configuration
+@ConditionalOnProperty(name = "books.datasource.replica.enabled", havingValue = "true")
+public class ReadWriteRoutingConfiguration implements DisposableBean {
+
+    private HikariDataSource replicaDataSource;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            @Value("${books.datasource.replica.url}") String url,
+            @Value("${books.datasource.replica.username:sa}") String username,
+            @Value("${books.datasource.replica.password:}") String password,
+            @Value("${books.datasource.replica.maximum-pool-size:10}") int maximumPoolSize) {
+        // not a bean: the primary stays the only pool of the application context
+        replicaDataSource = new HikariDataSource();
+        replicaDataSource.setPoolName("replica");
+        replicaDataSource.setJdbcUrl(url);
+        replicaDataSource.setUsername(username);
+        replicaDataSource.setPassword(password);
+        replicaDataSource.setMaximumPoolSize(maximumPoolSize);
+        replicaDataSource.setReadOnly(true);
+        return new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Override
+    public void destroy() {
+        if (replicaDataSource != null) {
+            replicaDataSource.close();
+        }
+    }
+
+    @Configuration
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class ReplicaReadWebConfiguration implements WebMvcConfigurer {
+
+        private final long maxLagMillis;
+
+        ReplicaReadWebConfiguration(@Value("${books.datasource.replica.max-lag-ms:1000}") long maxLagMillis) {
+            this.maxLagMillis = maxLagMillis;
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new ReplicaReadInterceptor(maxLagMillis));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.sbouclier.javarestbooks.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes connections of read requests to the replica, unless they are taken for a read-write transaction,
+ * every other connection goes to the primary.
+ *
+ * The route is decided when the connection is taken, so this data source must be wrapped in a
+ * LazyConnectionDataSourceProxy: the read-only flag of a transaction is only known once it has begun.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final Map<Target, LongAdder> connections = new EnumMap<>(Target.class);
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica) {
+        final Map<Object, Object> targets = new HashMap<>();
+        targets.put(Target.PRIMARY, primary);
+        targets.put(Target.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        for (Target target : Target.values()) {
+            connections.put(target, new LongAdder());
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        final boolean readWriteTransaction = TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        final Target target = ReplicaReadContext.isReplicaAllowed() && !readWriteTransaction
+                ? Target.REPLICA
+                : Target.PRIMARY;
+        connections.get(target).increment();
+        return target;
+    }
+
+    /**
+     * Number of connections taken from a target
+     */
+    public long getConnectionCount(Target target) {
+        return connections.get(target).sum();
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.sbouclier.javarestbooks.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Tells whether the current thread serves a request allowed to read from the replica (see ReplicaReadInterceptor)
+ *
+ * Values shared by every client, like cached books, are read from the primary: a replica behind the primary
+ * would cache a book older than the eviction of its last write.
+ */
+public final class ReplicaReadContext {
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = ThreadLocal.withInitial(() -> false);
+
+    private ReplicaReadContext() {
+    }
+
+    public static void allowReplica() {
+        REPLICA_ALLOWED.set(true);
+    }
+
+    public static boolean isReplicaAllowed() {
+        return REPLICA_ALLOWED.get();
+    }
+
+    public static void clear() {
+        REPLICA_ALLOWED.remove();
+    }
+
+    /**
+     * Read from the primary, whatever the request served by the current thread
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        final boolean replicaAllowed = REPLICA_ALLOWED.get();
+        REPLICA_ALLOWED.set(false);
+        try {
+            return read.get();
+        } finally {
+            REPLICA_ALLOWED.set(replicaAllowed);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.sbouclier.javarestbooks.datasource;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Lets GET and HEAD requests read from the replica, except for clients who wrote within the replica lag:
+ * every other request marks its client with a cookie holding the time of its write, so that the client
+ * reads its own writes from the primary. POST requests which only read, like a lookup of ISBNs, are reads too.
+ *
+ * The flag is set or cleared for every request and cleared when an async request leaves its thread, so that it
+ * never leaks into the next request served by the same thread.
+ */
+public class ReplicaReadInterceptor extends HandlerInterceptorAdapter {
+
+    static final String LAST_WRITE_COOKIE = "books-last-write";
+
+    // POST for a body too long for a URL, nothing is written
+    private static final Set<String> READ_ONLY_POSTS = Collections.singleton("/api/books/lookup");
+
+    private final long maxLagMillis;
+
+    public ReplicaReadInterceptor(long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        final long now = System.currentTimeMillis();
+
+        ReplicaReadContext.clear();
+        if (isRead(request)) {
+            if (now - lastWrite(request) > maxLagMillis) {
+                ReplicaReadContext.allowReplica();
+            }
+        } else {
+            final Cookie cookie = new Cookie(LAST_WRITE_COOKIE, String.valueOf(now));
+            cookie.setPath("/");
+            cookie.setMaxAge((int) Math.max(1, (maxLagMillis + 999) / 1000));
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+        return true;
+    }
+
+    /**
+     * afterCompletion is not called on this thread for async requests (streams, long polls, SSE)
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        ReplicaReadContext.clear();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaReadContext.clear();
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        final HttpMethod method = HttpMethod.resolve(request.getMethod());
+        return method == HttpMethod.GET || method == HttpMethod.HEAD
+                || method == HttpMethod.POST
+                && READ_ONLY_POSTS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    private static long lastWrite(HttpServletRequest request) {
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                    try {
+                        return Long.parseLong(cookie.getValue());
+                    } catch (NumberFormatException e) {
+                        // a tampered cookie reads from the primary
+                        return Long.MAX_VALUE;
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+}
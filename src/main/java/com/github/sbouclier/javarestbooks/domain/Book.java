@@ -1,7 +1,9 @@
 package com.github.sbouclier.javarestbooks.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.validator.constraints.NotBlank;
 import org.hibernate.validator.constraints.NotEmpty;
 
@@ -16,22 +18,49 @@ import java.util.Set;
  *
  */
 @Entity
-@Table(uniqueConstraints = { @UniqueConstraint(name = "uk_book_isbn", columnNames = "isbn") })
+@Table(uniqueConstraints = {
+                @UniqueConstraint(name = "uk_book_isbn", columnNames = "isbn"),
+                // one book per ISBN whatever the way it is written
+                @UniqueConstraint(name = "uk_book_isbn_key", columnNames = "isbn_key") },
+        indexes = {
+                // filters and sorts of the book list (see BookFilter), the id breaks ties between equal values
+                @Index(name = "idx_book_title", columnList = "title, id"),
+                @Index(name = "idx_book_publisher", columnList = "publisher, id") })
 public class Book {
 
+    /**
+     * Number of books written in one JDBC batch, it matches hibernate.jdbc.batch_size
+     */
+    public static final int BATCH_SIZE = 50;
+
+    // a pooled sequence lets Hibernate batch inserts, ids below 1000 are left to import.sql
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", initialValue = 1000, allocationSize = 50)
     private Long id;
 
+    // incremented on every update, it makes the book ETag
+    @Version
+    @JsonIgnore
+    private Long version;
+
     @NotBlank
     private String isbn;
 
+    // numeric form of the ISBN (see Isbn), null when the ISBN has none
+    @Column(name = "isbn_key")
+    @JsonIgnore
+    private Long isbnKey;
+
     @NotBlank
     private String title;
 
     private String description;
 
+    // authors of up to a full page of books (see BookController) are loaded in a single query
     @ElementCollection
+    @CollectionTable(indexes = @Index(name = "idx_book_authors_name", columnList = "last_name, first_name"))
+    @BatchSize(size = 50)
     @NotEmpty
     private Set<Author> authors;
 
@@ -48,6 +77,7 @@ public class Book {
 
     public Book(String isbn, String title, Set<Author> authors, String publisher) {
         this.isbn = isbn;
+        this.isbnKey = keyOf(isbn);
         this.title = title;
         this.authors = authors;
         this.publisher = publisher;
@@ -65,6 +95,22 @@ public class Book {
         this.authors.add(author);
     }
 
+    /**
+     * Copy of this book at the next version with another description, as written by a description update
+     */
+    public Book withDescription(String description) {
+        final Book book = new Book(isbn, title, new HashSet<>(authors), publisher);
+        book.id = id;
+        book.version = version + 1;
+        book.description = description;
+        return book;
+    }
+
+    private static Long keyOf(String isbn) {
+        final long key = Isbn.toKey(isbn);
+        return key == Isbn.NO_KEY ? null : key;
+    }
+
     // -------------
     // - TO STRING -
     // -------------
@@ -93,12 +139,25 @@ public class Book {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getIsbn() {
         return isbn;
     }
 
     public void setIsbn(String isbn) {
         this.isbn = isbn;
+        this.isbnKey = keyOf(isbn);
+    }
+
+    public Long getIsbnKey() {
+        return isbnKey;
     }
 
     public String getTitle() {
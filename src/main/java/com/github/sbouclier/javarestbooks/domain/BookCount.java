@@ -0,0 +1,40 @@
+package com.github.sbouclier.javarestbooks.domain;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Stored number of books, a single row maintained by BookCounter
+ */
+@Entity
+@Table(name = "book_count")
+public class BookCount {
+
+    public static final long ID = 1;
+
+    @Id
+    private Long id;
+
+    private long total;
+
+    // ----------------
+    // - CONSTRUCTORS -
+    // ----------------
+
+    private BookCount() {
+        // Default constructor for JPA
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.sbouclier.javarestbooks.domain;
+
+/**
+ * ISBN normalization to a numeric key.
+ *
+ * Hyphens and spaces are ignored and an ISBN-10 is converted to its ISBN-13 form, so that every way of writing
+ * an ISBN gives the same key: "0-321-35668-3", "978-0321356680" and "9780321356680" are all 9780321356680.
+ * Check digits are not verified, the key only identifies the digits.
+ */
+public final class Isbn {
+
+    /**
+     * Key of a text which is not an ISBN-10 nor an ISBN-13
+     */
+    public static final long NO_KEY = -1L;
+
+    private Isbn() {
+    }
+
+    public static long toKey(String isbn) {
+        if (isbn == null) {
+            return NO_KEY;
+        }
+
+        final char[] digits = new char[13];
+        int length = 0;
+        for (int i = 0; i < isbn.length(); i++) {
+            final char c = isbn.charAt(i);
+            if (c == '-' || c == ' ') {
+                continue;
+            }
+            // only the ISBN-10 check digit may be an X
+            final boolean digit = c >= '0' && c <= '9' || (c == 'X' || c == 'x') && length == 9;
+            if (!digit || length == digits.length) {
+                return NO_KEY;
+            }
+            digits[length++] = c;
+        }
+
+        if (length == 13 && digits[9] != 'X' && digits[9] != 'x') {
+            return Long.parseLong(new String(digits));
+        } else if (length == 10) {
+            return fromIsbn10(digits);
+        }
+        return NO_KEY;
+    }
+
+    /**
+     * @return the key as text when the ISBN has one, the ISBN itself otherwise
+     */
+    public static String canonical(String isbn) {
+        final long key = toKey(isbn);
+        return key == NO_KEY ? isbn : Long.toString(key);
+    }
+
+    private static long fromIsbn10(char[] digits) {
+        // 978 prefix, the 9 first digits and the ISBN-13 check digit (weights 1 and 3 alternately)
+        long key = 978;
+        int sum = 9 + 3 * 7 + 8;
+        for (int i = 0; i < 9; i++) {
+            final int digit = digits[i] - '0';
+            key = key * 10 + digit;
+            sum += (i % 2 == 0 ? 3 : 1) * digit;
+        }
+        return key * 10 + (10 - sum % 10) % 10;
+    }
+}
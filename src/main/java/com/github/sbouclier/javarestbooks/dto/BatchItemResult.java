@@ -0,0 +1,67 @@
+package com.github.sbouclier.javarestbooks.dto;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Outcome of one book of a batch creation
+ */
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED, CONFLICT, INVALID
+    }
+
+    private final String isbn;
+
+    private final Status status;
+
+    private final String message;
+
+    private BatchItemResult(String isbn, Status status, String message) {
+        this.isbn = isbn;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static BatchItemResult created(String isbn) {
+        return new BatchItemResult(isbn, Status.CREATED, null);
+    }
+
+    public static BatchItemResult conflict(String isbn) {
+        return new BatchItemResult(isbn, Status.CONFLICT, "book already exists for ISBN: '" + isbn + "'");
+    }
+
+    public static BatchItemResult invalid(String isbn, String message) {
+        return new BatchItemResult(isbn, Status.INVALID, message);
+    }
+
+    // -------------
+    // - TO STRING -
+    // -------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("isbn", isbn)
+                .append("status", status)
+                .append("message", message)
+                .toString();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.sbouclier.javarestbooks.dto;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.List;
+
+/**
+ * Outcome of a lookup of several ISBNs: books found in the requested order and the ISBNs not found
+ */
+public class BookLookup {
+
+    private final List<Book> books;
+
+    private final List<String> missing;
+
+    public BookLookup(List<Book> books, List<String> missing) {
+        this.books = books;
+        this.missing = missing;
+    }
+
+    // -------------
+    // - TO STRING -
+    // -------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("books", books)
+                .append("missing", missing)
+                .toString();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public List<Book> getBooks() {
+        return books;
+    }
+
+    public List<String> getMissing() {
+        return missing;
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.sbouclier.javarestbooks.dto;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counters and first errors of a bulk import
+ */
+public class ImportReport {
+
+    /**
+     * Only the first errors are reported, so that the report stays small whatever the feed size
+     */
+    public static final int MAX_ERRORS = 100;
+
+    private long read;
+
+    private long created;
+
+    private long updated;
+
+    private long skipped;
+
+    private long invalid;
+
+    private long failed;
+
+    private long elapsedMillis;
+
+    private final List<String> errors = new ArrayList<>();
+
+    // -----------
+    // - METHODS -
+    // -----------
+
+    public void incrementRead() {
+        read++;
+    }
+
+    public void addCreated(long count) {
+        created += count;
+    }
+
+    public void addUpdated(long count) {
+        updated += count;
+    }
+
+    public void addSkipped(long count) {
+        skipped += count;
+    }
+
+    public void addInvalid(long line, String error) {
+        invalid++;
+        addError(line, error);
+    }
+
+    public void addFailed(long count, long firstLine, String error) {
+        failed += count;
+        addError(firstLine, error);
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    private void addError(long line, String error) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + line + ": " + error);
+        }
+    }
+
+    // -------------
+    // - TO STRING -
+    // -------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("read", read)
+                .append("created", created)
+                .append("updated", updated)
+                .append("skipped", skipped)
+                .append("invalid", invalid)
+                .append("failed", failed)
+                .append("elapsedMillis", elapsedMillis)
+                .toString();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public long getRead() {
+        return read;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public double getBooksPerSecond() {
+        return elapsedMillis == 0 ? 0 : (created + updated) * 1000.0 / elapsedMillis;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
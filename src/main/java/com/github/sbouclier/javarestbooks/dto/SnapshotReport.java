@@ -0,0 +1,67 @@
+package com.github.sbouclier.javarestbooks.dto;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Counters of a catalog snapshot save or load
+ */
+public class SnapshotReport {
+
+    private final String file;
+
+    private final long books;
+
+    private final long authors;
+
+    private final long bytes;
+
+    private final long elapsedMillis;
+
+    public SnapshotReport(String file, long books, long authors, long bytes, long elapsedMillis) {
+        this.file = file;
+        this.books = books;
+        this.authors = authors;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    // -------------
+    // - TO STRING -
+    // -------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("file", file)
+                .append("books", books)
+                .append("authors", authors)
+                .append("bytes", bytes)
+                .append("elapsedMillis", elapsedMillis)
+                .toString();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public String getFile() {
+        return file;
+    }
+
+    public long getBooks() {
+        return books;
+    }
+
+    public long getAuthors() {
+        return authors;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.sbouclier.javarestbooks.event;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+/**
+ * Application event published on every book write.
+ *
+ * Listeners keeping derived state in sync with the database should use
+ * {@code @TransactionalEventListener(fallbackExecution = true)} so that rolled back writes are never applied.
+ */
+public class BookEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final Type type;
+
+    private final String isbn;
+
+    private final Book book;
+
+    private BookEvent(Type type, String isbn, Book book) {
+        this.type = type;
+        this.isbn = isbn;
+        this.book = book;
+    }
+
+    public static BookEvent created(Book book) {
+        return new BookEvent(Type.CREATED, book.getIsbn(), book);
+    }
+
+    /**
+     * @param isbn ISBN of the book before the update, it differs from the book one when the ISBN was changed
+     */
+    public static BookEvent updated(String isbn, Book book) {
+        return new BookEvent(Type.UPDATED, isbn, book);
+    }
+
+    public static BookEvent deleted(String isbn) {
+        return new BookEvent(Type.DELETED, isbn, null);
+    }
+
+    // -------------
+    // - TO STRING -
+    // -------------
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
+                .append("type", type)
+                .append("isbn", isbn)
+                .toString();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * ISBN of the book before the write
+     */
+    public String getIsbn() {
+        return isbn;
+    }
+
+    /**
+     * Book after the write, null when deleted
+     */
+    public Book getBook() {
+        return book;
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * DatabaseBusy exception
+ */
+public class DatabaseBusyException extends RuntimeException {
+
+    public DatabaseBusyException(long waitedMillis) {
+        super("database busy, no slot available after " + waitedMillis + " ms");
+    }
+}
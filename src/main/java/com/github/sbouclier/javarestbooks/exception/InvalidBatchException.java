@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * InvalidBatch exception
+ */
+public class InvalidBatchException extends RuntimeException {
+
+    public InvalidBatchException(int count, int maxCount) {
+        super("batch not supported: " + count + " books, at most " + maxCount);
+    }
+}
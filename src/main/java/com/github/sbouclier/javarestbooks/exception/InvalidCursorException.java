@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * InvalidCursor exception
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String cursor) {
+        super("invalid pagination cursor: '" + cursor + "'");
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * InvalidDescription exception
+ */
+public class InvalidDescriptionException extends RuntimeException {
+
+    public InvalidDescriptionException(int length, int maxLength) {
+        super("description not supported: " + length + " characters, at most " + maxLength);
+    }
+}
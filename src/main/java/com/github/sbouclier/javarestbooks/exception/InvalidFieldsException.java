@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * InvalidFields exception
+ */
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(String fields) {
+        super("fields not supported: '" + fields + "'");
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * InvalidLookup exception
+ */
+public class InvalidLookupException extends RuntimeException {
+
+    public InvalidLookupException(int count, int maxCount) {
+        super("lookup not supported: " + count + " ISBNs, at most " + maxCount);
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * InvalidSequence exception
+ */
+public class InvalidSequenceException extends RuntimeException {
+
+    /**
+     * @param minSequence oldest sequence changes can be resumed after
+     * @param maxSequence sequence of the last change
+     */
+    public InvalidSequenceException(long sequence, long minSequence, long maxSequence) {
+        super("sequence not supported: " + sequence + ", changes can be resumed after " + minSequence + " to "
+                + maxSequence);
+    }
+}
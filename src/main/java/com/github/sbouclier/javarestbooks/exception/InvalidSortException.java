@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.exception;
+
+/**
+ * InvalidSort exception
+ */
+public class InvalidSortException extends RuntimeException {
+
+    public InvalidSortException(String sort) {
+        super("sort not supported: '" + sort + "'");
+    }
+}
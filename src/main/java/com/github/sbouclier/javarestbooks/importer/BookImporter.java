@@ -0,0 +1,151 @@
+package com.github.sbouclier.javarestbooks.importer;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.dto.ImportReport;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Import a feed of books in chunks, each chunk is written in its own transaction.
+ *
+ * Only one chunk of books is held in memory at a time, whatever the feed size.
+ */
+@Component
+public class BookImporter {
+
+    public static final int MAX_CHUNK_SIZE = 10000;
+
+    private final BookRepository bookRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public BookImporter(BookRepository bookRepository, ApplicationEventPublisher eventPublisher, Validator validator,
+                        PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public ImportReport importBooks(Iterator<ImportRecord> records, ConflictPolicy policy, int chunkSize) {
+        final int size = Math.max(1, Math.min(chunkSize, MAX_CHUNK_SIZE));
+        final long start = System.nanoTime();
+        final ImportReport report = new ImportReport();
+
+        final List<ImportRecord> chunk = new ArrayList<>(size);
+        while (records.hasNext()) {
+            final ImportRecord record = records.next();
+            report.incrementRead();
+
+            if (!record.isReadable()) {
+                report.addInvalid(record.getLine(), record.getError());
+                continue;
+            }
+            final Set<ConstraintViolation<Book>> violations = validator.validate(record.getBook());
+            if (!violations.isEmpty()) {
+                report.addInvalid(record.getLine(), toMessage(violations));
+                continue;
+            }
+
+            chunk.add(record);
+            if (chunk.size() == size) {
+                writeChunk(chunk, policy, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, policy, report);
+        }
+
+        report.setElapsedMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return report;
+    }
+
+    private void writeChunk(List<ImportRecord> chunk, ConflictPolicy policy, ImportReport report) {
+        // within a chunk, the last book of an ISBN wins when upserting and the first one otherwise
+        // books are keyed by canonical ISBN (see Isbn), any form of an ISBN is the same book
+        final Map<String, Book> books = new LinkedHashMap<>();
+        // books of the chunk replaced by a later book of the same ISBN, counted as updated once written
+        int overridden = 0;
+        for (ImportRecord record : chunk) {
+            final Book book = record.getBook();
+            final String isbn = Isbn.canonical(book.getIsbn());
+            if (books.containsKey(isbn)) {
+                if (policy == ConflictPolicy.SKIP) {
+                    report.addSkipped(1);
+                    continue;
+                }
+                overridden++;
+            }
+            books.put(isbn, book);
+        }
+
+        try {
+            final int[] createdAndUpdated = transactionTemplate.execute(status -> {
+                final Set<String> existingIsbns = bookRepository.findExistingCanonicalIsbns(books.keySet());
+
+                if (policy == ConflictPolicy.UPSERT && !existingIsbns.isEmpty()) {
+                    for (Book existingBook : bookRepository.findByNormalizedIsbnIn(existingIsbns)) {
+                        final Book book = books.get(Isbn.canonical(existingBook.getIsbn()));
+                        existingBook.setTitle(book.getTitle());
+                        existingBook.setDescription(book.getDescription());
+                        existingBook.setAuthors(book.getAuthors());
+                        existingBook.setPublisher(book.getPublisher());
+                        eventPublisher.publishEvent(BookEvent.updated(existingBook.getIsbn(), existingBook));
+                    }
+                }
+
+                final List<Book> booksToInsert = books.entrySet().stream()
+                        .filter(entry -> !existingIsbns.contains(entry.getKey()))
+                        .map(Map.Entry::getValue)
+                        .collect(Collectors.toList());
+                booksToInsert.forEach(book -> book.setId(null));
+
+                // also flushes the updates of existing books
+                bookRepository.insertAll(booksToInsert);
+                booksToInsert.forEach(book -> eventPublisher.publishEvent(BookEvent.created(book)));
+
+                return new int[] { booksToInsert.size(), existingIsbns.size() };
+            });
+
+            report.addCreated(createdAndUpdated[0]);
+            if (policy == ConflictPolicy.UPSERT) {
+                report.addUpdated(createdAndUpdated[1] + overridden);
+            } else {
+                report.addSkipped(createdAndUpdated[1]);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            report.addFailed(books.size() + overridden, chunk.get(0).getLine(),
+                    "chunk rejected: " + e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private static String toMessage(Set<ConstraintViolation<Book>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.sbouclier.javarestbooks.importer;
+
+/**
+ * What an import does with a book whose ISBN already exists
+ */
+public enum ConflictPolicy {
+
+    /**
+     * Keep the existing book
+     */
+    SKIP,
+
+    /**
+     * Replace the existing book with the imported one
+     */
+    UPSERT
+}
@@ -0,0 +1,186 @@
+package com.github.sbouclier.javarestbooks.importer;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read books from CSV (RFC 4180) lazily.
+ *
+ * The first record is a header naming the columns: isbn, title, publisher, description and authors. Authors are
+ * separated by ';', the last word of an author is the last name: "Joshua Bloch;Brian Goetz".
+ */
+public class CsvBookReader implements Iterator<ImportRecord> {
+
+    private static final int EOF = -1;
+
+    private final Reader reader;
+
+    private final Map<String, Integer> columns = new HashMap<>();
+
+    private long lineNumber = 1;
+
+    private int lookahead = EOF;
+
+    private boolean lookaheadPending;
+
+    private ImportRecord next;
+
+    public CsvBookReader(Reader reader) {
+        this.reader = reader;
+        final List<String> header = readRecord();
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ImportRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final ImportRecord record = next;
+        next = null;
+        return record;
+    }
+
+    private ImportRecord readNext() {
+        List<String> values;
+        long recordLine;
+        do {
+            recordLine = lineNumber;
+            values = readRecord();
+        } while (values != null && values.size() == 1 && values.get(0).trim().isEmpty());
+
+        if (values == null) {
+            return null;
+        }
+        if (values.size() > columns.size()) {
+            return ImportRecord.unreadable(recordLine, "too many values");
+        }
+
+        final Book book = new Book(value(values, "isbn"), value(values, "title"), parseAuthors(value(values, "authors")),
+                value(values, "publisher"));
+        book.setDescription(value(values, "description"));
+        return ImportRecord.of(recordLine, book);
+    }
+
+    private String value(List<String> values, String column) {
+        final Integer index = columns.get(column);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    private static Set<Author> parseAuthors(String authors) {
+        final Set<Author> result = new HashSet<>();
+        if (authors == null) {
+            return result;
+        }
+        for (String author : authors.split(";")) {
+            final String name = author.trim();
+            if (!name.isEmpty()) {
+                final int lastSpace = name.lastIndexOf(' ');
+                result.add(lastSpace < 0
+                        ? new Author(null, name)
+                        : new Author(name.substring(0, lastSpace).trim(), name.substring(lastSpace + 1)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read the values of the next record, quoted values may contain separators, line breaks and doubled quotes
+     */
+    private List<String> readRecord() {
+        int c = read();
+        if (c == EOF) {
+            return null;
+        }
+
+        final List<String> values = new ArrayList<>();
+        final StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == EOF) {
+                    values.add(value.toString());
+                    return values;
+                } else if (c == '"') {
+                    final int following = read();
+                    if (following == '"') {
+                        value.append('"');
+                    } else {
+                        quoted = false;
+                        unread(following);
+                    }
+                } else {
+                    if (c == '\n') {
+                        lineNumber++;
+                    }
+                    value.append((char) c);
+                }
+            } else if (c == '"' && value.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == EOF) {
+                if (c == '\r') {
+                    final int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                if (c != EOF) {
+                    lineNumber++;
+                }
+                values.add(value.toString());
+                return values;
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() {
+        if (lookaheadPending) {
+            lookaheadPending = false;
+            return lookahead;
+        }
+        try {
+            return reader.read();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void unread(int c) {
+        lookahead = c;
+        lookaheadPending = true;
+    }
+}
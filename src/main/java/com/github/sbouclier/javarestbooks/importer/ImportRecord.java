@@ -0,0 +1,49 @@
+package com.github.sbouclier.javarestbooks.importer;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+
+/**
+ * One record of an import feed: a parsed book or the reason it could not be parsed
+ */
+public final class ImportRecord {
+
+    private final long line;
+
+    private final Book book;
+
+    private final String error;
+
+    private ImportRecord(long line, Book book, String error) {
+        this.line = line;
+        this.book = book;
+        this.error = error;
+    }
+
+    static ImportRecord of(long line, Book book) {
+        return new ImportRecord(line, book, null);
+    }
+
+    static ImportRecord unreadable(long line, String error) {
+        return new ImportRecord(line, null, error);
+    }
+
+    public boolean isReadable() {
+        return book != null;
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public long getLine() {
+        return line;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
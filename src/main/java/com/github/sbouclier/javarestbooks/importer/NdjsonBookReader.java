@@ -0,0 +1,70 @@
+package com.github.sbouclier.javarestbooks.importer;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.sbouclier.javarestbooks.domain.Book;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Read books from newline-delimited JSON, one book per line, lazily
+ */
+public class NdjsonBookReader implements Iterator<ImportRecord> {
+
+    private final BufferedReader reader;
+
+    private final ObjectReader bookReader;
+
+    private long lineNumber;
+
+    private ImportRecord next;
+
+    public NdjsonBookReader(BufferedReader reader, ObjectReader bookReader) {
+        this.reader = reader;
+        this.bookReader = bookReader.forType(Book.class);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = readNext();
+        }
+        return next != null;
+    }
+
+    @Override
+    public ImportRecord next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final ImportRecord record = next;
+        next = null;
+        return record;
+    }
+
+    private ImportRecord readNext() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (!line.trim().isEmpty()) {
+                    return parse(line);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ImportRecord parse(String line) {
+        try {
+            return ImportRecord.of(lineNumber, bookReader.readValue(line));
+        } catch (IOException e) {
+            return ImportRecord.unreadable(lineNumber, "malformed JSON");
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import com.github.sbouclier.javarestbooks.concurrency.DatabaseConcurrencyLimiter;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Metrics of controller handlers, repository methods and connection pool, written in the Prometheus text format
+ */
+@Component
+public class BookMetrics {
+
+    private final ConcurrentMap<String, OperationMetrics> handlers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, OperationMetrics> repositoryMethods = new ConcurrentHashMap<>();
+
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+
+    // only in the elastic execution mode
+    private final Optional<DatabaseConcurrencyLimiter> databaseConcurrencyLimiter;
+
+    public BookMetrics(ConnectionPoolMetrics connectionPoolMetrics,
+                       Optional<DatabaseConcurrencyLimiter> databaseConcurrencyLimiter) {
+        this.connectionPoolMetrics = connectionPoolMetrics;
+        this.databaseConcurrencyLimiter = databaseConcurrencyLimiter;
+    }
+
+    /**
+     * @param handler "Controller.method"
+     */
+    public OperationMetrics handler(String handler) {
+        return handlers.computeIfAbsent(handler, name -> new OperationMetrics());
+    }
+
+    /**
+     * @param method repository method name
+     */
+    public OperationMetrics repositoryMethod(String method) {
+        return repositoryMethods.computeIfAbsent(method, name -> new OperationMetrics());
+    }
+
+    /**
+     * Handlers by name, in name order
+     */
+    public Map<String, OperationMetrics> getHandlers() {
+        return new TreeMap<>(handlers);
+    }
+
+    public Map<String, OperationMetrics> getRepositoryMethods() {
+        return new TreeMap<>(repositoryMethods);
+    }
+
+    public String toPrometheus() {
+        final StringBuilder out = new StringBuilder(8192);
+        final Map<String, OperationMetrics> sortedHandlers = getHandlers();
+        final Map<String, OperationMetrics> sortedMethods = getRepositoryMethods();
+
+        writeHistograms(out, "books_http_request_seconds", "handler", sortedHandlers);
+        writeErrors(out, "books_http_request_errors_total", "handler", sortedHandlers);
+        writeCounter(out, "books_http_request_sql_statements_total", "handler", sortedHandlers,
+                OperationMetrics::getStatements);
+        writeCounter(out, "books_http_request_entity_loads_total", "handler", sortedHandlers,
+                OperationMetrics::getEntityLoads);
+        writeCounter(out, "books_http_request_collection_fetches_total", "handler", sortedHandlers,
+                OperationMetrics::getCollectionFetches);
+
+        writeHistograms(out, "books_repository_seconds", "method", sortedMethods);
+        writeErrors(out, "books_repository_errors_total", "method", sortedMethods);
+
+        out.append("# TYPE books_db_connection_acquire_seconds histogram\n");
+        writeHistogram(out, "books_db_connection_acquire_seconds", "", connectionPoolMetrics.acquireLatency());
+        out.append("# TYPE books_db_connection_timeouts_total counter\n")
+                .append("books_db_connection_timeouts_total ").append(connectionPoolMetrics.getTimeouts()).append('\n');
+        out.append("# TYPE books_db_connections gauge\n")
+                .append("books_db_connections{state=\"active\"} ").append(connectionPoolMetrics.getActiveConnections()).append('\n')
+                .append("books_db_connections{state=\"idle\"} ").append(connectionPoolMetrics.getIdleConnections()).append('\n');
+        out.append("# TYPE books_db_connection_pending_threads gauge\n")
+                .append("books_db_connection_pending_threads ").append(connectionPoolMetrics.getPendingThreads()).append('\n');
+
+        databaseConcurrencyLimiter.ifPresent(limiter -> {
+            out.append("# TYPE books_db_limiter_wait_seconds histogram\n");
+            writeHistogram(out, "books_db_limiter_wait_seconds", "", limiter.waitLatency());
+            out.append("# TYPE books_db_limiter_rejections_total counter\n")
+                    .append("books_db_limiter_rejections_total ").append(limiter.getRejections()).append('\n');
+            out.append("# TYPE books_db_limiter_slots gauge\n")
+                    .append("books_db_limiter_slots{state=\"in_use\"} ").append(limiter.getInUse()).append('\n')
+                    .append("books_db_limiter_slots{state=\"queued\"} ").append(limiter.getQueueLength()).append('\n');
+        });
+        return out.toString();
+    }
+
+    private static void writeHistograms(StringBuilder out, String name, String label, Map<String, OperationMetrics> metrics) {
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        metrics.forEach((key, operation) ->
+                writeHistogram(out, name, label + "=\"" + key + "\",", operation.latency()));
+    }
+
+    private static void writeHistogram(StringBuilder out, String name, String labels, LatencyHistogram.Snapshot latency) {
+        for (int i = 0; i <= LatencyHistogram.BOUNDS.length; i++) {
+            final String le = i == LatencyHistogram.BOUNDS.length ? "+Inf" : Double.toString(LatencyHistogram.BOUNDS[i]);
+            out.append(name).append("_bucket{").append(labels).append("le=\"").append(le).append("\"} ")
+                    .append(latency.getCumulativeCount(i)).append('\n');
+        }
+        final String braces = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(name).append("_sum").append(braces).append(' ').append(latency.getSumSeconds()).append('\n');
+        out.append(name).append("_count").append(braces).append(' ').append(latency.getCount()).append('\n');
+    }
+
+    private static void writeErrors(StringBuilder out, String name, String label, Map<String, OperationMetrics> metrics) {
+        out.append("# TYPE ").append(name).append(" counter\n");
+        metrics.forEach((key, operation) -> {
+            for (Map.Entry<String, LongAdder> error : new TreeMap<>(operation.getErrors()).entrySet()) {
+                out.append(name).append('{').append(label).append("=\"").append(key)
+                        .append("\",exception=\"").append(error.getKey()).append("\"} ")
+                        .append(error.getValue().sum()).append('\n');
+            }
+        });
+    }
+
+    private static void writeCounter(StringBuilder out, String name, String label, Map<String, OperationMetrics> metrics,
+                                     ToLongFunction<OperationMetrics> value) {
+        out.append("# TYPE ").append(name).append(" counter\n");
+        metrics.forEach((key, operation) ->
+                out.append(name).append('{').append(label).append("=\"").append(key).append("\"} ")
+                        .append(value.applyAsLong(operation)).append('\n'));
+    }
+}
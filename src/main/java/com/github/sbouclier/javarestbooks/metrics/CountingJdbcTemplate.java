@@ -0,0 +1,32 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JdbcTemplate of the application, it counts the statements it creates like {@link CountingStatementInspector}
+ * does for Hibernate: the export stream, the catalog snapshot, the write-behind flushes and the book counter
+ * go through it. A batch is one statement, as in Hibernate.
+ *
+ * Being a JdbcOperations bean, it replaces the JdbcTemplate of Spring Boot.
+ */
+@Component
+public class CountingJdbcTemplate extends JdbcTemplate {
+
+    public CountingJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    /**
+     * Called once for every statement created by the template, before it is executed
+     */
+    @Override
+    protected void applyStatementSettings(Statement statement) throws SQLException {
+        PersistenceCounters.statementPrepared();
+        super.applyStatementSettings(statement);
+    }
+}
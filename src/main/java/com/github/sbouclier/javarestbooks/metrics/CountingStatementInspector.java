@@ -0,0 +1,17 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Count the SQL statements prepared by Hibernate, without changing them.
+ *
+ * Hibernate instantiates it from the hibernate.session_factory.statement_inspector property.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        PersistenceCounters.statementPrepared();
+        return sql;
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Count entity loads and collection fetches in {@link PersistenceCounters}, next to the default Hibernate listeners
+ */
+@Component
+public class HibernateEventCounters {
+
+    public HibernateEventCounters(EntityManagerFactory entityManagerFactory) {
+        final SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        final EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> PersistenceCounters.entityLoaded());
+        // a batch fetch initializes several collections with one event
+        registry.appendListeners(EventType.INIT_COLLECTION,
+                (InitializeCollectionEventListener) event -> PersistenceCounters.collectionFetched());
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed buckets, from 50 microseconds to 10 seconds.
+ *
+ * Recording a value is a search in a small array and two {@link LongAdder} increments, percentiles are
+ * estimated by linear interpolation within a bucket.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Upper bounds of the buckets in seconds, a last implicit bucket holds slower values
+     */
+    static final double[] BOUNDS = {
+            0.00005, 0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS_NANOS[i] = Math.round(BOUNDS[i] * 1e9);
+        }
+    }
+
+    private final LongAdder[] counts = new LongAdder[BOUNDS.length + 1];
+
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        int low = 0;
+        int high = BOUNDS_NANOS.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (BOUNDS_NANOS[middle] < nanos) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        counts[low].increment();
+        sumNanos.add(nanos);
+    }
+
+    public Snapshot snapshot() {
+        final long[] bucketCounts = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            bucketCounts[i] = counts[i].sum();
+        }
+        return new Snapshot(bucketCounts, sumNanos.sum());
+    }
+
+    /**
+     * Consistent enough copy of the histogram: buckets are read one after the other while values are recorded
+     */
+    public static class Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sumNanos;
+
+        Snapshot(long[] counts, long sumNanos) {
+            this.counts = counts;
+            this.sumNanos = sumNanos;
+            long total = 0;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSumSeconds() {
+            return sumNanos / 1e9;
+        }
+
+        public double getMeanSeconds() {
+            return count == 0 ? 0 : getSumSeconds() / count;
+        }
+
+        /**
+         * Number of values lower than or equal to the upper bound of a bucket
+         */
+        public long getCumulativeCount(int bucket) {
+            long cumulative = 0;
+            for (int i = 0; i <= bucket; i++) {
+                cumulative += counts[i];
+            }
+            return cumulative;
+        }
+
+        /**
+         * @param quantile between 0 and 1, the last bucket answers its lower bound
+         */
+        public double getQuantileSeconds(double quantile) {
+            if (count == 0) {
+                return 0;
+            }
+            final double rank = quantile * count;
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0 && cumulative + counts[i] >= rank) {
+                    if (i == BOUNDS.length) {
+                        return BOUNDS[BOUNDS.length - 1];
+                    }
+                    final double lower = i == 0 ? 0 : BOUNDS[i - 1];
+                    return lower + (BOUNDS[i] - lower) * (rank - cumulative) / counts[i];
+                }
+                cumulative += counts[i];
+            }
+            return BOUNDS[BOUNDS.length - 1];
+        }
+    }
+}
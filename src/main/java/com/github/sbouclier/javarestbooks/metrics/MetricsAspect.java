@@ -0,0 +1,35 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time repository methods, requests of book controllers are timed by the {@link RequestMetricsInterceptor}
+ */
+@Aspect
+@Component
+public class MetricsAspect {
+
+    private final BookMetrics bookMetrics;
+
+    public MetricsAspect(BookMetrics bookMetrics) {
+        this.bookMetrics = bookMetrics;
+    }
+
+    @Around("execution(* com.github.sbouclier.javarestbooks.repository.BookRepository+.*(..))")
+    public Object timeRepositoryMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        final OperationMetrics metrics = bookMetrics.repositoryMethod(joinPoint.getSignature().getName());
+
+        final long start = System.nanoTime();
+        try {
+            final Object result = joinPoint.proceed();
+            metrics.recordSuccess(System.nanoTime() - start);
+            return result;
+        } catch (Throwable e) {
+            metrics.recordError(System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency, errors by exception type and persistence work of one controller handler or repository method
+ */
+public class OperationMetrics {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private final LongAdder statements = new LongAdder();
+
+    private final LongAdder entityLoads = new LongAdder();
+
+    private final LongAdder collectionFetches = new LongAdder();
+
+    public void recordSuccess(long nanos) {
+        latency.record(nanos);
+    }
+
+    public void recordError(long nanos, Throwable error) {
+        latency.record(nanos);
+        errors.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    public void recordPersistence(long statementCount, long entityLoadCount, long collectionFetchCount) {
+        statements.add(statementCount);
+        entityLoads.add(entityLoadCount);
+        collectionFetches.add(collectionFetchCount);
+    }
+
+    public LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+
+    public Map<String, LongAdder> getErrors() {
+        return errors;
+    }
+
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getEntityLoads() {
+        return entityLoads.sum();
+    }
+
+    public long getCollectionFetches() {
+        return collectionFetches.sum();
+    }
+}
@@ -0,0 +1,58 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+/**
+ * Statements, entity loads and collection fetches issued by the current thread since {@link #reset()}.
+ *
+ * They are counted by {@link CountingStatementInspector} and {@link HibernateEventCounters}, which Hibernate calls
+ * on the thread running the session, and by {@link CountingJdbcTemplate} for the statements of JdbcTemplate.
+ */
+public final class PersistenceCounters {
+
+    private static final ThreadLocal<PersistenceCounters> CURRENT = ThreadLocal.withInitial(PersistenceCounters::new);
+
+    private long statements;
+
+    private long entityLoads;
+
+    private long collectionFetches;
+
+    private PersistenceCounters() {
+    }
+
+    /**
+     * Counters of the current thread, they are reused by the next request handled by the thread
+     */
+    public static PersistenceCounters current() {
+        return CURRENT.get();
+    }
+
+    public void reset() {
+        statements = 0;
+        entityLoads = 0;
+        collectionFetches = 0;
+    }
+
+    static void statementPrepared() {
+        CURRENT.get().statements++;
+    }
+
+    static void entityLoaded() {
+        CURRENT.get().entityLoads++;
+    }
+
+    static void collectionFetched() {
+        CURRENT.get().collectionFetches++;
+    }
+
+    public long getStatements() {
+        return statements;
+    }
+
+    public long getEntityLoads() {
+        return entityLoads;
+    }
+
+    public long getCollectionFetches() {
+        return collectionFetches;
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.Callable;
+
+/**
+ * Time the requests of book controllers and count their persistence work, from the handler call to the end of the
+ * response: lazy loads while the body is written and async bodies (export stream, long polls) are included.
+ *
+ * The persistence counters are per thread, so the work of a request is summed over the threads serving it: the
+ * request thread until async handling starts, the task writing a streamed body, and the thread of the async dispatch.
+ * Exceptions are seen as a resolver, before BookControllerAdvice turns them into responses.
+ */
+public class RequestMetricsInterceptor extends HandlerInterceptorAdapter
+        implements CallableProcessingInterceptor, HandlerExceptionResolver {
+
+    private static final String CONTROLLER_PACKAGE = "com.github.sbouclier.javarestbooks.controller";
+
+    private static final String REQUEST_METRICS = RequestMetricsInterceptor.class.getName() + ".REQUEST_METRICS";
+
+    private final BookMetrics bookMetrics;
+
+    public RequestMetricsInterceptor(BookMetrics bookMetrics) {
+        this.bookMetrics = bookMetrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        final String handlerName = handlerName(handler);
+        if (handlerName == null) {
+            return true;
+        }
+        // also called by the async dispatch of the same request
+        if (request.getAttribute(REQUEST_METRICS) == null) {
+            request.setAttribute(REQUEST_METRICS, new RequestMetrics(bookMetrics.handler(handlerName), System.nanoTime()));
+        }
+        PersistenceCounters.current().reset();
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        final RequestMetrics metrics = (RequestMetrics) request.getAttribute(REQUEST_METRICS);
+        if (metrics != null) {
+            metrics.add(PersistenceCounters.current());
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        final RequestMetrics metrics = (RequestMetrics) request.getAttribute(REQUEST_METRICS);
+        if (metrics == null) {
+            return;
+        }
+        request.removeAttribute(REQUEST_METRICS);
+        metrics.add(PersistenceCounters.current());
+        metrics.record(ex);
+    }
+
+    /**
+     * Runs on the task executor thread writing a streamed body
+     */
+    @Override
+    public <T> void preProcess(NativeWebRequest request, Callable<T> task) {
+        PersistenceCounters.current().reset();
+    }
+
+    @Override
+    public <T> void postProcess(NativeWebRequest request, Callable<T> task, Object concurrentResult) {
+        final RequestMetrics metrics =
+                (RequestMetrics) request.getAttribute(REQUEST_METRICS, RequestAttributes.SCOPE_REQUEST);
+        if (metrics != null) {
+            metrics.add(PersistenceCounters.current());
+        }
+    }
+
+    /**
+     * Remember the exception of the handler, then let the next resolvers handle it
+     */
+    @Override
+    public ModelAndView resolveException(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                         Exception ex) {
+        final RequestMetrics metrics = (RequestMetrics) request.getAttribute(REQUEST_METRICS);
+        if (metrics != null) {
+            metrics.error = ex;
+        }
+        return null;
+    }
+
+    /**
+     * @return "Controller.method" of a book controller handler, null for other handlers
+     */
+    private static String handlerName(Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return null;
+        }
+        final HandlerMethod handlerMethod = (HandlerMethod) handler;
+        final Class<?> type = handlerMethod.getBeanType();
+        final String simpleName = type.getSimpleName();
+        if (!CONTROLLER_PACKAGE.equals(type.getPackage().getName())
+                || !simpleName.startsWith("Book") || !simpleName.endsWith("Controller")) {
+            return null;
+        }
+        return simpleName + "." + handlerMethod.getMethod().getName();
+    }
+
+    /**
+     * Work of one request, handed from thread to thread as the request goes async
+     */
+    private static final class RequestMetrics {
+
+        private final OperationMetrics operation;
+
+        private final long start;
+
+        private long statements;
+
+        private long entityLoads;
+
+        private long collectionFetches;
+
+        private Exception error;
+
+        private RequestMetrics(OperationMetrics operation, long start) {
+            this.operation = operation;
+            this.start = start;
+        }
+
+        private synchronized void add(PersistenceCounters counters) {
+            statements += counters.getStatements();
+            entityLoads += counters.getEntityLoads();
+            collectionFetches += counters.getCollectionFetches();
+            counters.reset();
+        }
+
+        private synchronized void record(Exception ex) {
+            final long nanos = System.nanoTime() - start;
+            final Exception failure = ex != null ? ex : error;
+            if (failure == null) {
+                operation.recordSuccess(nanos);
+            } else {
+                operation.recordError(nanos, failure);
+            }
+            operation.recordPersistence(statements, entityLoads, collectionFetches);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.sbouclier.javarestbooks.reactive;
+
+import com.github.sbouclier.javarestbooks.cache.BookCache;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookCursor;
+import com.github.sbouclier.javarestbooks.repository.BookFields;
+import com.github.sbouclier.javarestbooks.repository.BookFilter;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.repository.BookVersion;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking facade of the book repository for the reactive API.
+ *
+ * JDBC is blocking, so every call runs in its own transaction on a small pool of database threads sized like the
+ * connection pool, never on the event loop. Books are returned with their authors loaded since no session stays
+ * open while they are serialized.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveBookRepository {
+
+    // attempts of a description update against concurrent writes of the same book
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
+    private final BookRepository bookRepository;
+
+    private final BookCache bookCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate readTransaction;
+
+    private final TransactionTemplate writeTransaction;
+
+    private final Scheduler scheduler;
+
+    public ReactiveBookRepository(BookRepository bookRepository, BookCache bookCache,
+                                  ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager,
+                                  @Value("${books.db.max-concurrency:10}") int threads) {
+        this.bookRepository = bookRepository;
+        this.bookCache = bookCache;
+        this.eventPublisher = eventPublisher;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.scheduler = Schedulers.fromExecutorService(Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "reactive-db-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    /**
+     * A book missing from the cache is loaded within the read transaction, its authors are initialized there
+     */
+    public Mono<Book> findByIsbn(String isbn) {
+        return read(status -> bookCache.findByIsbn(isbn).orElse(null));
+    }
+
+    public Mono<BookVersion> findVersionByIsbn(String isbn) {
+        return read(status -> bookRepository.findVersionByNormalizedIsbn(isbn).orElse(null));
+    }
+
+    public Mono<Page<Book>> findAll(BookFilter filter, Pageable pageable) {
+        return read(status -> {
+            final Page<Book> page = bookRepository.findAll(filter, pageable);
+            page.forEach(book -> Hibernate.initialize(book.getAuthors()));
+            return page;
+        });
+    }
+
+    public Mono<List<Book>> findAllAfter(BookFilter filter, BookCursor cursor, int limit) {
+        return read(status -> {
+            final List<Book> books = bookRepository.findAllAfter(filter, cursor, limit);
+            books.forEach(book -> Hibernate.initialize(book.getAuthors()));
+            return books;
+        });
+    }
+
+    public Mono<Page<Book>> findAll(BookFilter filter, Pageable pageable, BookFields fields) {
+        return read(status -> bookRepository.findAll(filter, pageable, fields));
+    }
+
+    public Mono<List<Book>> findAllAfter(BookFilter filter, BookCursor cursor, int limit, BookFields fields) {
+        return read(status -> bookRepository.findAllAfter(filter, cursor, limit, fields));
+    }
+
+    public Mono<Book> create(Book book) {
+        return write(status -> {
+            // a single insert, the uk_book_isbn and uk_book_isbn_key constraints reject duplicates
+            bookRepository.insert(book);
+            eventPublisher.publishEvent(BookEvent.created(book));
+            return book;
+        });
+    }
+
+    /**
+     * @return the updated book, empty when no book has this ISBN
+     */
+    public Mono<Book> update(String isbn, Book book) {
+        return write(status -> bookRepository.findByNormalizedIsbn(isbn)
+                .map(bookToUpdate -> {
+                    final String previousIsbn = bookToUpdate.getIsbn();
+                    bookToUpdate.setIsbn(book.getIsbn());
+                    bookToUpdate.setTitle(book.getTitle());
+                    bookToUpdate.setDescription(book.getDescription());
+                    bookToUpdate.setAuthors(book.getAuthors());
+                    bookToUpdate.setPublisher(book.getPublisher());
+                    final Book updatedBook = bookRepository.update(bookToUpdate);
+                    Hibernate.initialize(updatedBook.getAuthors());
+                    eventPublisher.publishEvent(BookEvent.updated(previousIsbn, updatedBook));
+                    return updatedBook;
+                })
+                .orElse(null));
+    }
+
+    /**
+     * Single conditional update from the id and version of the cached book, like BookController
+     */
+    public Mono<Book> updateDescription(String isbn, String description) {
+        return Mono.fromCallable(() -> {
+            for (int attempt = 1; ; attempt++) {
+                // its own read transaction: a book read again after an eviction must not come from the same session
+                final Book book = readTransaction.execute(status -> bookCache.findByIsbn(isbn).orElse(null));
+                if (book == null) {
+                    return null;
+                }
+                if (bookRepository.updateDescription(book.getId(), book.getVersion(), description) == 1) {
+                    final Book updatedBook = book.withDescription(description);
+                    eventPublisher.publishEvent(BookEvent.updated(book.getIsbn(), updatedBook));
+                    return updatedBook;
+                }
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw new OptimisticLockingFailureException("book with ISBN '" + isbn + "' is being updated concurrently");
+                }
+                bookCache.evict(isbn);
+            }
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * @return the ISBN of the deleted book, empty when no book has this ISBN
+     */
+    public Mono<String> delete(String isbn) {
+        return write(status -> {
+            if (bookRepository.deleteByIsbn(isbn) == 0) {
+                return null;
+            }
+            eventPublisher.publishEvent(BookEvent.deleted(isbn));
+            return isbn;
+        });
+    }
+
+    private <T> Mono<T> read(TransactionCallback<T> callback) {
+        return Mono.fromCallable(() -> readTransaction.execute(callback)).subscribeOn(scheduler);
+    }
+
+    private <T> Mono<T> write(TransactionCallback<T> callback) {
+        return Mono.fromCallable(() -> writeTransaction.execute(callback)).subscribeOn(scheduler);
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.exception.InvalidCursorException;
+import com.github.sbouclier.javarestbooks.exception.InvalidSortException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset pagination cursor: the sort column and direction, plus the position (sort value and id) of the
+ * last book returned. Clients only see its opaque URL-safe encoding.
+ */
+public final class BookCursor {
+
+    /**
+     * Sort columns of book lists and cursors, they are all non null and lead an index with the id:
+     * no request sorts the whole table
+     */
+    public static final List<String> SORTABLE_FIELDS = Arrays.asList("id", "isbn", "title", "publisher");
+
+    private static final String SEPARATOR = ",";
+
+    private final String sort;
+
+    private final Sort.Direction direction;
+
+    private final Long lastId;
+
+    private final String lastValue;
+
+    private BookCursor(String sort, Sort.Direction direction, Long lastId, String lastValue) {
+        if (!SORTABLE_FIELDS.contains(sort)) {
+            throw new InvalidSortException(sort);
+        }
+        this.sort = sort;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * Cursor positioned before the first book
+     */
+    public static BookCursor first(String sort, Sort.Direction direction) {
+        return new BookCursor(sort, direction, null, null);
+    }
+
+    /**
+     * Cursor positioned right after the given book
+     */
+    public BookCursor after(Book book) {
+        return new BookCursor(sort, direction, book.getId(), sortValueOf(book));
+    }
+
+    public static BookCursor decode(String encoded) {
+        final String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8).split(SEPARATOR, 4);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(encoded);
+        }
+        if (parts.length != 4) {
+            throw new InvalidCursorException(encoded);
+        }
+        try {
+            return new BookCursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(encoded);
+        }
+    }
+
+    public String encode() {
+        final String raw = sort + SEPARATOR + direction + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    private String sortValueOf(Book book) {
+        switch (sort) {
+            case "isbn":
+                return book.getIsbn();
+            case "title":
+                return book.getTitle();
+            case "publisher":
+                return book.getPublisher();
+            default:
+                return "";
+        }
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public String getSort() {
+        return sort;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.exception.InvalidFieldsException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse fieldset of books, as requested with {@code ?fields=isbn,title}: only these columns are selected and
+ * only these fields are written. Fields always come in the order of {@link #FIELDS}.
+ */
+public final class BookFields {
+
+    public static final List<String> FIELDS =
+            Collections.unmodifiableList(Arrays.asList("id", "isbn", "title", "description", "publisher", "authors"));
+
+    private static final String AUTHORS = "authors";
+
+    private final List<String> fields;
+
+    private BookFields(List<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param fields comma separated field names
+     */
+    public static BookFields parse(String fields) {
+        final List<String> requested = Arrays.asList(fields.split(","));
+        final List<String> selected = new ArrayList<>();
+        for (String field : FIELDS) {
+            if (requested.contains(field)) {
+                selected.add(field);
+            }
+        }
+        for (String field : requested) {
+            if (!FIELDS.contains(field)) {
+                throw new InvalidFieldsException(fields);
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new InvalidFieldsException(fields);
+        }
+        return new BookFields(selected);
+    }
+
+    public boolean contains(String field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * Requested columns of the book table, authors excluded
+     */
+    public List<String> columns() {
+        final List<String> columns = new ArrayList<>(fields);
+        columns.remove(AUTHORS);
+        return columns;
+    }
+
+    public boolean hasAuthors() {
+        return fields.contains(AUTHORS);
+    }
+
+    /**
+     * Requested fields of a book, in the order of {@link #FIELDS}
+     */
+    public Map<String, Object> of(Book book) {
+        final Map<String, Object> values = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id":
+                    values.put(field, book.getId());
+                    break;
+                case "isbn":
+                    values.put(field, book.getIsbn());
+                    break;
+                case "title":
+                    values.put(field, book.getTitle());
+                    break;
+                case "description":
+                    values.put(field, book.getDescription());
+                    break;
+                case "publisher":
+                    values.put(field, book.getPublisher());
+                    break;
+                default:
+                    values.put(field, book.getAuthors());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", fields);
+    }
+}
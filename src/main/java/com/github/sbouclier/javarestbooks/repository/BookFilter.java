@@ -0,0 +1,124 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Filter of the book list, as requested with {@code ?publisher=...&author=...&titlePrefix=...}. Every condition
+ * is served by an index of the Book mapping: idx_book_publisher, idx_book_title and idx_book_authors_name.
+ */
+public final class BookFilter {
+
+    public static final BookFilter NONE = new BookFilter(null, null, null);
+
+    // upper bound of the strings starting with a prefix, a range on the index unlike a LIKE pattern
+    private static final char MAX_CHAR = Character.MAX_VALUE;
+
+    private final String publisher;
+
+    private final String author;
+
+    private final String titlePrefix;
+
+    private BookFilter(String publisher, String author, String titlePrefix) {
+        this.publisher = publisher;
+        this.author = author;
+        this.titlePrefix = titlePrefix;
+    }
+
+    /**
+     * @param publisher exact publisher
+     * @param author exact last name of one of the authors
+     * @param titlePrefix start of the title, case sensitive
+     */
+    public static BookFilter of(String publisher, String author, String titlePrefix) {
+        final BookFilter filter = new BookFilter(emptyToNull(publisher), emptyToNull(author), emptyToNull(titlePrefix));
+        return filter.isEmpty() ? NONE : filter;
+    }
+
+    public boolean isEmpty() {
+        return publisher == null && author == null && titlePrefix == null;
+    }
+
+    /**
+     * Conditions of the filter over the books of a query
+     */
+    Predicate[] predicates(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Book> book) {
+        final List<Predicate> predicates = new ArrayList<>(3);
+        if (publisher != null) {
+            predicates.add(cb.equal(book.get("publisher"), publisher));
+        }
+        if (titlePrefix != null) {
+            final Path<String> title = book.get("title");
+            predicates.add(cb.greaterThanOrEqualTo(title, titlePrefix));
+            predicates.add(cb.lessThan(title, titlePrefix + MAX_CHAR));
+        }
+        if (author != null) {
+            // id in (...) reads the author index, then each book by its primary key
+            final Subquery<Long> authored = query.subquery(Long.class);
+            final Root<Book> authoredBook = authored.from(Book.class);
+            final Join<Book, Author> authors = authoredBook.join("authors");
+            authored.select(authoredBook.get("id")).where(cb.equal(authors.get("lastName"), author));
+            predicates.add(book.get("id").in(authored));
+        }
+        return predicates.toArray(new Predicate[predicates.size()]);
+    }
+
+    /**
+     * Query parameters of the filter, to be appended to pagination links
+     */
+    public String toQueryString() {
+        final StringBuilder query = new StringBuilder();
+        appendParameter(query, "publisher", publisher);
+        appendParameter(query, "author", author);
+        appendParameter(query, "titlePrefix", titlePrefix);
+        return query.toString();
+    }
+
+    private static void appendParameter(StringBuilder query, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        if (query.length() > 0) {
+            query.append('&');
+        }
+        try {
+            query.append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8.name()));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public String getPublisher() {
+        return publisher;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+}
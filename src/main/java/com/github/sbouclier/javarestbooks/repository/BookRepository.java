@@ -1,9 +1,17 @@
 package com.github.sbouclier.javarestbooks.repository;
 
 import com.github.sbouclier.javarestbooks.domain.Book;
-import org.springframework.data.repository.PagingAndSortingRepository;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Book repository
@@ -11,6 +19,97 @@ import java.util.Optional;
  * @author Stéphane Bouclier
  *
  */
-public interface BookRepository extends PagingAndSortingRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     Optional<Book> findByIsbn(String isbn);
+
+    /**
+     * Find a book by the numeric form of its ISBN, whatever the way it was written (see Isbn)
+     */
+    Optional<Book> findByIsbnKey(Long isbnKey);
+
+    Optional<BookVersion> findVersionByIsbn(String isbn);
+
+    Optional<BookVersion> findVersionByIsbnKey(Long isbnKey);
+
+    List<Book> findByIsbnKeyIn(Collection<Long> isbnKeys);
+
+    @Query("select b.isbnKey from Book b where b.isbnKey in :isbnKeys")
+    Set<Long> findExistingIsbnKeys(@Param("isbnKeys") Collection<Long> isbnKeys);
+
+    List<Book> findByIsbnIn(Collection<String> isbns);
+
+    /**
+     * Books of the given ISBN keys with their authors, in a single query
+     */
+    @Query("select distinct b from Book b left join fetch b.authors where b.isbnKey in :isbnKeys")
+    List<Book> findWithAuthorsByIsbnKeyIn(@Param("isbnKeys") Collection<Long> isbnKeys);
+
+    /**
+     * Books of the given ISBNs with their authors, in a single query
+     */
+    @Query("select distinct b from Book b left join fetch b.authors where b.isbn in :isbns")
+    List<Book> findWithAuthorsByIsbnIn(@Param("isbns") Collection<String> isbns);
+
+    @Query("select b.isbn from Book b where b.isbn in :isbns")
+    Set<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+
+    /**
+     * Find a book by its ISBN written in any form (see Isbn): by its key, or by the exact text when it has none
+     */
+    default Optional<Book> findByNormalizedIsbn(String isbn) {
+        final long isbnKey = Isbn.toKey(isbn);
+        return isbnKey == Isbn.NO_KEY ? findByIsbn(isbn) : findByIsbnKey(isbnKey);
+    }
+
+    default Optional<BookVersion> findVersionByNormalizedIsbn(String isbn) {
+        final long isbnKey = Isbn.toKey(isbn);
+        return isbnKey == Isbn.NO_KEY ? findVersionByIsbn(isbn) : findVersionByIsbnKey(isbnKey);
+    }
+
+    /**
+     * @return the canonical form (see Isbn#canonical) of the given ISBNs which a book has, in any form
+     */
+    default Set<String> findExistingCanonicalIsbns(Collection<String> isbns) {
+        final Set<Long> isbnKeys = new HashSet<>();
+        final Set<String> otherIsbns = new HashSet<>();
+        splitByKey(isbns, isbnKeys, otherIsbns);
+
+        final Set<String> existingIsbns = new HashSet<>();
+        if (!isbnKeys.isEmpty()) {
+            findExistingIsbnKeys(isbnKeys).forEach(isbnKey -> existingIsbns.add(Long.toString(isbnKey)));
+        }
+        if (!otherIsbns.isEmpty()) {
+            existingIsbns.addAll(findExistingIsbns(otherIsbns));
+        }
+        return existingIsbns;
+    }
+
+    /**
+     * Books of the given ISBNs, written in any form
+     */
+    default List<Book> findByNormalizedIsbnIn(Collection<String> isbns) {
+        final Set<Long> isbnKeys = new HashSet<>();
+        final Set<String> otherIsbns = new HashSet<>();
+        splitByKey(isbns, isbnKeys, otherIsbns);
+
+        final List<Book> books = new ArrayList<>(isbns.size());
+        if (!isbnKeys.isEmpty()) {
+            books.addAll(findByIsbnKeyIn(isbnKeys));
+        }
+        if (!otherIsbns.isEmpty()) {
+            books.addAll(findByIsbnIn(otherIsbns));
+        }
+        return books;
+    }
+
+    static void splitByKey(Collection<String> isbns, Set<Long> isbnKeys, Set<String> otherIsbns) {
+        for (String isbn : isbns) {
+            final long isbnKey = Isbn.toKey(isbn);
+            if (isbnKey == Isbn.NO_KEY) {
+                otherIsbns.add(isbn);
+            } else {
+                isbnKeys.add(isbnKey);
+            }
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Book repository custom queries
+ */
+public interface BookRepositoryCustom {
+
+    /**
+     * Seek filtered books following the cursor position, without offset nor count query
+     */
+    List<Book> findAllAfter(BookFilter filter, BookCursor cursor, int limit);
+
+    /**
+     * Seek filtered books following the cursor position, with the requested fields only
+     */
+    List<Book> findAllAfter(BookFilter filter, BookCursor cursor, int limit, BookFields fields);
+
+    /**
+     * Page of books, its total is the one kept by BookCounter: only the page rows are queried
+     */
+    Page<Book> findAll(Pageable pageable);
+
+    /**
+     * Page of filtered books, a filtered total is counted with the indexes of the filter
+     */
+    Page<Book> findAll(BookFilter filter, Pageable pageable);
+
+    /**
+     * Page of filtered books with the requested fields only: other columns are not selected and authors are read
+     * only when requested. Books are detached and not meant to be saved.
+     */
+    Page<Book> findAll(BookFilter filter, Pageable pageable, BookFields fields);
+
+    /**
+     * Insert new books and their authors in JDBC batches, within a single transaction
+     */
+    void insertAll(List<Book> books);
+
+    /**
+     * Insert a new book and its authors with no prior lookup, the uk_book_isbn and uk_book_isbn_key constraints
+     * reject duplicates
+     *
+     * @throws com.github.sbouclier.javarestbooks.exception.BookIsbnAlreadyExistsException if a book has its ISBN,
+     * whatever the way it is written
+     */
+    void insert(Book book);
+
+    /**
+     * Write the changes of a book and flush them
+     *
+     * @throws com.github.sbouclier.javarestbooks.exception.BookIsbnAlreadyExistsException if another book has its ISBN
+     */
+    Book update(Book book);
+
+    /**
+     * Update the description of a book in a single statement, only if it is still at the given version
+     *
+     * @return 1 when updated, 0 when the book was changed or deleted since that version
+     */
+    int updateDescription(Long id, Long version, String description);
+
+    /**
+     * Delete a book and its authors without loading them
+     *
+     * @return the number of deleted books
+     */
+    int deleteByIsbn(String isbn);
+
+    /**
+     * Read all books ordered by id through a forward-only cursor, books are handed to the action one by one
+     * and never kept in the persistence context
+     */
+    void forEach(Consumer<Book> action);
+
+    /**
+     * Read the ISBN keys of all books through a forward-only cursor, books without key are skipped
+     */
+    void forEachIsbnKey(LongConsumer action);
+}
@@ -0,0 +1,398 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+import com.github.sbouclier.javarestbooks.cache.BookCounter;
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.exception.BookIsbnAlreadyExistsException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Book repository custom queries implementation
+ */
+@Transactional(readOnly = true)
+public class BookRepositoryImpl implements BookRepositoryCustom {
+
+    private static final int FETCH_SIZE = 1000;
+
+    // one row per author, rows of a book are contiguous
+    private static final String SELECT_ALL_WITH_AUTHORS =
+            "select b.id, b.version, b.isbn, b.title, b.description, b.publisher, a.first_name, a.last_name "
+                    + "from book b left join book_authors a on a.book_id = b.id order by b.id";
+
+    private static final String SELECT_ALL_ISBN_KEYS = "select isbn_key from book where isbn_key is not null";
+
+    // uk_book_isbn and uk_book_isbn_key
+    private static final String ISBN_CONSTRAINT_PREFIX = "UK_BOOK_ISBN";
+
+    private static final String DELETE_AUTHORS_BY_ISBN =
+            "delete from book_authors where book_id in (select id from book where isbn = ?1)";
+
+    private static final String DELETE_BOOK_BY_ISBN = "delete from book where isbn = ?1";
+
+    private static final String DELETE_AUTHORS_BY_ISBN_KEY =
+            "delete from book_authors where book_id in (select id from book where isbn_key = ?1)";
+
+    private static final String DELETE_BOOK_BY_ISBN_KEY = "delete from book where isbn_key = ?1";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final BookCounter bookCounter;
+
+    public BookRepositoryImpl(JdbcTemplate jdbcTemplate, BookCounter bookCounter) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.bookCounter = bookCounter;
+    }
+
+    @Override
+    public Page<Book> findAll(Pageable pageable) {
+        return findAll(BookFilter.NONE, pageable);
+    }
+
+    @Override
+    public Page<Book> findAll(BookFilter filter, Pageable pageable) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        final Root<Book> book = query.from(Book.class);
+        query.where(filter.predicates(cb, query, book));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, cb));
+
+        final List<Book> books = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+        return PageableExecutionUtils.getPage(books, pageable, () -> count(filter));
+    }
+
+    @Override
+    public List<Book> findAllAfter(BookFilter filter, BookCursor cursor, int limit) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Book> query = cb.createQuery(Book.class);
+        final Root<Book> book = query.from(Book.class);
+        seekAfter(cb, query, book, filter, cursor);
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public List<Book> findAllAfter(BookFilter filter, BookCursor cursor, int limit, BookFields fields) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        final Root<Book> book = query.from(Book.class);
+        // the sort column gives the position of the next cursor
+        query.multiselect(selection(book, fields, cursor.getSort()));
+        seekAfter(cb, query, book, filter, cursor);
+
+        return toBooks(entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList(), fields);
+    }
+
+    @Override
+    public Page<Book> findAll(BookFilter filter, Pageable pageable, BookFields fields) {
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        final Root<Book> book = query.from(Book.class);
+        query.multiselect(selection(book, fields, null));
+        query.where(filter.predicates(cb, query, book));
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), book, cb));
+
+        final List<Book> books = toBooks(entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList(), fields);
+        return PageableExecutionUtils.getPage(books, pageable, () -> count(filter));
+    }
+
+    /**
+     * The whole catalog is counted by BookCounter, a filtered one with the indexes of the filter
+     */
+    private long count(BookFilter filter) {
+        if (filter.isEmpty()) {
+            return bookCounter.total();
+        }
+        final CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        final Root<Book> book = query.from(Book.class);
+        query.select(cb.count(book)).where(filter.predicates(cb, query, book));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<Book> books) {
+        for (int i = 0; i < books.size(); i++) {
+            entityManager.persist(books.get(i));
+
+            // flush a full JDBC batch and keep the persistence context small
+            if ((i + 1) % Book.BATCH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        bookCounter.add(books.size());
+    }
+
+    @Override
+    @Transactional
+    public void insert(Book book) {
+        try {
+            entityManager.persist(book);
+            entityManager.flush();
+        } catch (PersistenceException e) {
+            throw translated(e, book);
+        }
+        bookCounter.add(1);
+    }
+
+    @Override
+    @Transactional
+    public Book update(Book book) {
+        try {
+            final Book updatedBook = entityManager.merge(book);
+            entityManager.flush();
+            return updatedBook;
+        } catch (PersistenceException e) {
+            throw translated(e, book);
+        }
+    }
+
+    @Override
+    @Transactional
+    public int updateDescription(Long id, Long version, String description) {
+        return entityManager.createQuery("update Book b set b.description = :description, b.version = b.version + 1 "
+                + "where b.id = :id and b.version = :version")
+                .setParameter("description", description)
+                .setParameter("id", id)
+                .setParameter("version", version)
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional
+    public int deleteByIsbn(String isbn) {
+        // any form of the ISBN, like reads (see Isbn)
+        final long isbnKey = Isbn.toKey(isbn);
+        final Object parameter = isbnKey == Isbn.NO_KEY ? isbn : isbnKey;
+        entityManager.createNativeQuery(isbnKey == Isbn.NO_KEY ? DELETE_AUTHORS_BY_ISBN : DELETE_AUTHORS_BY_ISBN_KEY)
+                .setParameter(1, parameter).executeUpdate();
+        final int deleted = entityManager.createNativeQuery(isbnKey == Isbn.NO_KEY ? DELETE_BOOK_BY_ISBN : DELETE_BOOK_BY_ISBN_KEY)
+                .setParameter(1, parameter).executeUpdate();
+        bookCounter.add(-deleted);
+        return deleted;
+    }
+
+    @Override
+    public void forEach(Consumer<Book> action) {
+        final BookRowCallbackHandler handler = new BookRowCallbackHandler(action);
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(SELECT_ALL_WITH_AUTHORS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, handler);
+        handler.complete();
+    }
+
+    @Override
+    public void forEachIsbnKey(LongConsumer action) {
+        jdbcTemplate.query(connection -> {
+            final PreparedStatement statement = connection.prepareStatement(SELECT_ALL_ISBN_KEYS,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(rs.getLong(1)));
+    }
+
+    /**
+     * A violation of uk_book_isbn or uk_book_isbn_key (another spelling of an existing ISBN) becomes a
+     * BookIsbnAlreadyExistsException, other failures are left as they are
+     */
+    private static RuntimeException translated(PersistenceException e, Book book) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                final ConstraintViolationException violation = (ConstraintViolationException) cause;
+                final String constraint = violation.getConstraintName() != null
+                        ? violation.getConstraintName() : violation.getSQLException().getMessage();
+                if (constraint != null && constraint.toUpperCase().contains(ISBN_CONSTRAINT_PREFIX)) {
+                    return new BookIsbnAlreadyExistsException(book.getIsbn());
+                }
+            }
+        }
+        return e;
+    }
+
+    /**
+     * Restrict a query to the filtered books following the cursor position, in the cursor order
+     */
+    private static void seekAfter(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Book> book, BookFilter filter,
+                                  BookCursor cursor) {
+        final boolean asc = cursor.getDirection().isAscending();
+        final Path<Long> id = book.get("id");
+        final List<Predicate> predicates = new ArrayList<>(Arrays.asList(filter.predicates(cb, query, book)));
+
+        if ("id".equals(cursor.getSort())) {
+            if (!cursor.isFirst()) {
+                predicates.add(seek(cb, id, cursor.getLastId(), asc));
+            }
+            query.orderBy(asc ? cb.asc(id) : cb.desc(id));
+        } else {
+            final Path<String> sortColumn = book.get(cursor.getSort());
+            if (!cursor.isFirst()) {
+                // (sort, id) > (lastValue, lastId), id breaks ties between equal sort values
+                predicates.add(cb.or(
+                        seek(cb, sortColumn, cursor.getLastValue(), asc),
+                        cb.and(cb.equal(sortColumn, cursor.getLastValue()), seek(cb, id, cursor.getLastId(), asc))));
+            }
+            query.orderBy(asc ? cb.asc(sortColumn) : cb.desc(sortColumn), asc ? cb.asc(id) : cb.desc(id));
+        }
+        query.where(predicates.toArray(new Predicate[predicates.size()]));
+    }
+
+    /**
+     * The id and version, the requested columns and the extra column, if any
+     */
+    private static List<Selection<?>> selection(Root<Book> book, BookFields fields, String extraColumn) {
+        final Set<String> columns = new LinkedHashSet<>();
+        columns.add("id");
+        // pending descriptions are overlaid by version (see DescriptionWriteQueue)
+        columns.add("version");
+        columns.addAll(fields.columns());
+        if (extraColumn != null) {
+            columns.add(extraColumn);
+        }
+
+        final List<Selection<?>> selection = new ArrayList<>(columns.size());
+        for (String column : columns) {
+            selection.add(book.get(column).alias(column));
+        }
+        return selection;
+    }
+
+    /**
+     * Detached books holding the selected columns only, and their authors when requested in a single query
+     */
+    private List<Book> toBooks(List<Tuple> tuples, BookFields fields) {
+        final Map<Long, Book> books = new LinkedHashMap<>();
+        for (Tuple tuple : tuples) {
+            final Book book = new Book(null, null, new HashSet<>(), null);
+            for (TupleElement<?> element : tuple.getElements()) {
+                final Object value = tuple.get(element);
+                switch (element.getAlias()) {
+                    case "id":
+                        book.setId((Long) value);
+                        break;
+                    case "version":
+                        book.setVersion((Long) value);
+                        break;
+                    case "isbn":
+                        book.setIsbn((String) value);
+                        break;
+                    case "title":
+                        book.setTitle((String) value);
+                        break;
+                    case "description":
+                        book.setDescription((String) value);
+                        break;
+                    case "publisher":
+                        book.setPublisher((String) value);
+                        break;
+                    default:
+                        throw new IllegalStateException("unexpected column: " + element.getAlias());
+                }
+            }
+            books.put(book.getId(), book);
+        }
+
+        if (fields.hasAuthors() && !books.isEmpty()) {
+            entityManager.createQuery("select b.id, a.firstName, a.lastName from Book b join b.authors a "
+                    + "where b.id in :ids", Object[].class)
+                    .setParameter("ids", books.keySet())
+                    .getResultList()
+                    .forEach(row -> books.get((Long) row[0]).addAuthor(new Author((String) row[1], (String) row[2])));
+        }
+        return new ArrayList<>(books.values());
+    }
+
+    private static <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb, Path<T> path, T value, boolean asc) {
+        return asc ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+
+    /**
+     * Assemble books from their contiguous author rows, only the book being read is held in memory
+     */
+    private static class BookRowCallbackHandler implements RowCallbackHandler {
+
+        private final Consumer<Book> action;
+
+        private Book current;
+
+        BookRowCallbackHandler(Consumer<Book> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            final long id = rs.getLong("id");
+            if (current == null || current.getId() != id) {
+                complete();
+                current = new Book(rs.getString("isbn"), rs.getString("title"), new HashSet<>(), rs.getString("publisher"));
+                current.setId(id);
+                current.setVersion(rs.getLong("version"));
+                current.setDescription(rs.getString("description"));
+            }
+
+            final String firstName = rs.getString("first_name");
+            final String lastName = rs.getString("last_name");
+            if (firstName != null || lastName != null) {
+                current.addAuthor(new Author(firstName, lastName));
+            }
+        }
+
+        void complete() {
+            if (current != null) {
+                action.accept(current);
+                current = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+/**
+ * Identity and version of a book, enough to validate a cached representation
+ */
+public interface BookVersion {
+
+    Long getId();
+
+    Long getVersion();
+}
@@ -0,0 +1,223 @@
+package com.github.sbouclier.javarestbooks.search;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Number of books per publisher and per author, read without querying books.
+ *
+ * Counts are built from the database at startup and then kept up to date by {@link BookEvent}s once they are
+ * committed. Each book remembers the publisher and authors it was counted under, so that an update or a delete
+ * takes back exactly what the book added. Writes of different books run concurrently: a book is applied atomically
+ * within its map entry and counts are LongAdders, only a rebuild excludes them.
+ */
+@Component
+public class BookFacets {
+
+    private final BookRepository bookRepository;
+
+    // writes share it, a rebuild takes it exclusively
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // canonical ISBN -> facet values the book is counted under
+    private final ConcurrentMap<String, BookFacetValues> books = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> publishers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<AuthorName, LongAdder> authors = new ConcurrentHashMap<>();
+
+    public BookFacets(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            books.clear();
+            publishers.clear();
+            authors.clear();
+            bookRepository.forEach(book -> doPut(Isbn.canonical(book.getIsbn()), book));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEvent(BookEvent event) {
+        lock.readLock().lock();
+        try {
+            final String isbn = Isbn.canonical(event.getIsbn());
+            final Book book = event.getBook();
+            if (book == null) {
+                doPut(isbn, null);
+                return;
+            }
+            final String newIsbn = Isbn.canonical(book.getIsbn());
+            if (!newIsbn.equals(isbn)) {
+                doPut(isbn, null);
+            }
+            doPut(newIsbn, book);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Publishers with their number of books, most books first
+     *
+     * @param publisher only this publisher when not null
+     * @param limit maximum number of publishers
+     */
+    public List<Map.Entry<String, Long>> publishers(String publisher, int limit) {
+        return top(publishers, name -> publisher == null || publisher.equals(name), limit);
+    }
+
+    /**
+     * Authors with their number of books, most books first
+     *
+     * @param lastName only the authors of this last name when not null
+     * @param limit maximum number of authors
+     */
+    public List<Map.Entry<Author, Long>> authors(String lastName, int limit) {
+        final List<Map.Entry<AuthorName, Long>> names =
+                top(authors, name -> lastName == null || lastName.equals(name.lastName), limit);
+        final List<Map.Entry<Author, Long>> counts = new ArrayList<>(names.size());
+        for (Map.Entry<AuthorName, Long> name : names) {
+            counts.add(new AbstractMap.SimpleImmutableEntry<>(
+                    new Author(name.getKey().firstName, name.getKey().lastName), name.getValue()));
+        }
+        return counts;
+    }
+
+    public int size() {
+        return books.size();
+    }
+
+    /**
+     * Count a book under its current values instead of the previous ones, a null book is removed
+     */
+    private void doPut(String isbn, Book book) {
+        final BookFacetValues values = book != null ? BookFacetValues.of(book) : null;
+        books.compute(isbn, (key, previous) -> {
+            if (previous != null) {
+                count(previous, -1);
+            }
+            if (values != null) {
+                count(values, 1);
+            }
+            return values;
+        });
+    }
+
+    private void count(BookFacetValues values, int delta) {
+        if (values.publisher != null) {
+            publishers.computeIfAbsent(values.publisher, key -> new LongAdder()).add(delta);
+        }
+        for (AuthorName author : values.authors) {
+            authors.computeIfAbsent(author, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static <K extends Comparable<? super K>> List<Map.Entry<K, Long>> top(
+            ConcurrentMap<K, LongAdder> counts, Predicate<K> filter, int limit) {
+        final List<Map.Entry<K, Long>> entries = new ArrayList<>();
+        counts.forEach((key, count) -> {
+            final long sum = count.sum();
+            // values whose books are all gone keep a zero count
+            if (sum > 0 && filter.test(key)) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(key, sum));
+            }
+        });
+        entries.sort(Map.Entry.<K, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()));
+        return entries.size() > limit ? new ArrayList<>(entries.subList(0, limit)) : entries;
+    }
+
+    /**
+     * Publisher and distinct authors of a book
+     */
+    private static final class BookFacetValues {
+
+        private final String publisher;
+
+        private final Set<AuthorName> authors;
+
+        private BookFacetValues(String publisher, Set<AuthorName> authors) {
+            this.publisher = publisher;
+            this.authors = authors;
+        }
+
+        static BookFacetValues of(Book book) {
+            final Set<AuthorName> authors = new LinkedHashSet<>();
+            if (book.getAuthors() != null) {
+                for (Author author : book.getAuthors()) {
+                    authors.add(new AuthorName(author.getFirstName(), author.getLastName()));
+                }
+            }
+            return new BookFacetValues(book.getPublisher(), authors);
+        }
+    }
+
+    /**
+     * Author as a value, ordered by last name then first name
+     */
+    private static final class AuthorName implements Comparable<AuthorName> {
+
+        private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+
+        private final String firstName;
+
+        private final String lastName;
+
+        AuthorName(String firstName, String lastName) {
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        @Override
+        public int compareTo(AuthorName other) {
+            final int byLastName = NULLS_FIRST.compare(lastName, other.lastName);
+            return byLastName != 0 ? byLastName : NULLS_FIRST.compare(firstName, other.firstName);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AuthorName)) {
+                return false;
+            }
+            final AuthorName other = (AuthorName) o;
+            return Objects.equals(firstName, other.firstName) && Objects.equals(lastName, other.lastName);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(firstName, lastName);
+        }
+    }
+}
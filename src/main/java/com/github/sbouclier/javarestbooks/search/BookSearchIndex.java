@@ -0,0 +1,238 @@
+package com.github.sbouclier.javarestbooks.search;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory inverted index of books by ISBN, over title, authors, publisher and description.
+ *
+ * It is built from the database at startup and then kept up to date by {@link BookEvent}s once they are committed.
+ * Results are ranked by the sum, over query terms, of field-weighted term frequencies times inverse document
+ * frequencies. Every query term must match, the last one also matches as a prefix.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final float TITLE_WEIGHT = 3f;
+
+    private static final float AUTHOR_WEIGHT = 2f;
+
+    private static final float PUBLISHER_WEIGHT = 1f;
+
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final float PREFIX_MATCH_WEIGHT = 0.5f;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final BookRepository bookRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> (ISBN -> weighted term frequency)
+    private final NavigableMap<String, Map<String, Float>> postings = new TreeMap<>();
+
+    // ISBN -> indexed terms, to remove a book from its postings
+    private final Map<String, Map<String, Float>> documents = new HashMap<>();
+
+    // canonical ISBN (see Isbn) -> indexed ISBN, so that any form of the ISBN removes a book
+    private final Map<String, String> indexedIsbns = new HashMap<>();
+
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            indexedIsbns.clear();
+            bookRepository.forEach(this::doIndex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEvent(BookEvent event) {
+        lock.writeLock().lock();
+        try {
+            doRemove(event.getIsbn());
+            if (event.getBook() != null) {
+                doIndex(event.getBook());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Book book) {
+        lock.writeLock().lock();
+        try {
+            doRemove(book.getIsbn());
+            doIndex(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String isbn) {
+        lock.writeLock().lock();
+        try {
+            doRemove(isbn);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ISBNs of all books matching every term of the query, best match first
+     */
+    public List<String> search(String query) {
+        final List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<String, Float> scores = null;
+            for (int i = 0; i < terms.size(); i++) {
+                final Map<String, Float> termScores = score(terms.get(i), i == terms.size() - 1);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    // books must match every term
+                    scores.keySet().retainAll(termScores.keySet());
+                    for (Map.Entry<String, Float> score : scores.entrySet()) {
+                        score.setValue(score.getValue() + termScores.get(score.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    return Collections.emptyList();
+                }
+            }
+
+            final List<Map.Entry<String, Float>> ranked = new ArrayList<>(scores.entrySet());
+            ranked.sort(Map.Entry.<String, Float>comparingByValue(Comparator.reverseOrder())
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            final List<String> isbns = new ArrayList<>(ranked.size());
+            ranked.forEach(entry -> isbns.add(entry.getKey()));
+            return isbns;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Float> score(String term, boolean prefix) {
+        final Map<String, Map<String, Float>> matches = prefix
+                ? postings.subMap(term, true, term + Character.MAX_VALUE, true)
+                : postings.subMap(term, true, term, true);
+
+        final Map<String, Float> scores = new HashMap<>();
+        for (Map.Entry<String, Map<String, Float>> match : matches.entrySet()) {
+            final Map<String, Float> books = match.getValue();
+            final float idf = (float) Math.log(1 + (double) documents.size() / books.size());
+            final float matchWeight = match.getKey().equals(term) ? 1f : PREFIX_MATCH_WEIGHT;
+            for (Map.Entry<String, Float> book : books.entrySet()) {
+                scores.merge(book.getKey(), book.getValue() * idf * matchWeight, Float::sum);
+            }
+        }
+        return scores;
+    }
+
+    private void doIndex(Book book) {
+        final Map<String, Float> terms = new HashMap<>();
+        addTerms(terms, book.getTitle(), TITLE_WEIGHT);
+        if (book.getAuthors() != null) {
+            for (Author author : book.getAuthors()) {
+                addTerms(terms, author.getFirstName(), AUTHOR_WEIGHT);
+                addTerms(terms, author.getLastName(), AUTHOR_WEIGHT);
+            }
+        }
+        addTerms(terms, book.getPublisher(), PUBLISHER_WEIGHT);
+        addTerms(terms, book.getDescription(), DESCRIPTION_WEIGHT);
+
+        documents.put(book.getIsbn(), terms);
+        indexedIsbns.put(Isbn.canonical(book.getIsbn()), book.getIsbn());
+        for (Map.Entry<String, Float> term : terms.entrySet()) {
+            postings.computeIfAbsent(term.getKey(), key -> new HashMap<>()).put(book.getIsbn(), term.getValue());
+        }
+    }
+
+    private void doRemove(String anyIsbn) {
+        final String isbn = indexedIsbns.remove(Isbn.canonical(anyIsbn));
+        if (isbn == null) {
+            return;
+        }
+        final Map<String, Float> terms = documents.remove(isbn);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms.keySet()) {
+            final Map<String, Float> books = postings.get(term);
+            books.remove(isbn);
+            if (books.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    private static void addTerms(Map<String, Float> terms, String text, float weight) {
+        for (String term : tokenize(text)) {
+            terms.merge(term, weight, Float::sum);
+        }
+    }
+
+    /**
+     * Lower case, accent-free words of a text
+     */
+    static List<String> tokenize(String text) {
+        final List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        final String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        for (String term : NON_WORD.split(normalized.toLowerCase(Locale.ROOT))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+}
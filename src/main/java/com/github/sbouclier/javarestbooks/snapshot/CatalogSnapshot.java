@@ -0,0 +1,310 @@
+package com.github.sbouclier.javarestbooks.snapshot;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.dto.SnapshotReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the catalog to a binary snapshot (see SnapshotFile) on shutdown or on demand, and loads it back at startup
+ * instead of replaying import.sql (see SnapshotEnvironmentPostProcessor).
+ *
+ * The load runs once Hibernate has created the schema and before the application is ready: rows are inserted with
+ * JDBC batches, referential integrity off and the secondary indexes dropped, the indexes are built again over the
+ * loaded rows. In-memory structures (IsbnFilter, BookSearchIndex, BookFacets, BookCounter) are built afterwards,
+ * on ApplicationReadyEvent.
+ * If the snapshot cannot be loaded the catalog is seeded from import.sql.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class CatalogSnapshot {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // ids below are left to import.sql, see Book
+    private static final long FIRST_GENERATED_ID = 1000;
+
+    // one row per author, rows of a book are contiguous
+    private static final String SELECT_ALL_WITH_AUTHORS =
+            "select b.id, b.version, b.isbn, b.isbn_key, b.title, b.description, b.publisher, "
+                    + "a.book_id, a.first_name, a.last_name "
+                    + "from book b left join book_authors a on a.book_id = b.id order by b.id";
+
+    private static final String INSERT_BOOK =
+            "insert into book(id,version,isbn,isbn_key,title,description,publisher) values (?,?,?,?,?,?,?)";
+
+    private static final String INSERT_AUTHOR =
+            "insert into book_authors(book_id,first_name,last_name) values (?,?,?)";
+
+    // created by Hibernate from the Book mapping
+    private static final String[] DROP_INDEXES = {
+            "alter table book drop constraint uk_book_isbn",
+            "alter table book drop constraint uk_book_isbn_key",
+            "drop index idx_book_title",
+            "drop index idx_book_publisher",
+            "drop index idx_book_authors_name"
+    };
+
+    private static final String[] CREATE_INDEXES = {
+            "alter table book add constraint uk_book_isbn unique (isbn)",
+            "alter table book add constraint uk_book_isbn_key unique (isbn_key)",
+            "create index idx_book_title on book (title, id)",
+            "create index idx_book_publisher on book (publisher, id)",
+            "create index idx_book_authors_name on book_authors (last_name, first_name)"
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final boolean enabled;
+
+    private final boolean saveOnShutdown;
+
+    private final Path file;
+
+    private volatile SnapshotReport lastLoad;
+
+    private volatile SnapshotReport lastSave;
+
+    public CatalogSnapshot(JdbcTemplate jdbcTemplate,
+                           @Value("${books.snapshot.enabled:false}") boolean enabled,
+                           @Value("${books.snapshot.save-on-shutdown:true}") boolean saveOnShutdown,
+                           @Value("${books.snapshot.file:books.snapshot}") String file) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.saveOnShutdown = saveOnShutdown;
+        this.file = Paths.get(file);
+    }
+
+    @PostConstruct
+    public void loadOnStartup() {
+        if (!enabled || !Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            lastLoad = load(file);
+            LOGGER.info("Catalog loaded from snapshot: {}", lastLoad);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Catalog snapshot '{}' not loaded, seeding from import.sql", file, e);
+            new ResourceDatabasePopulator(new ClassPathResource("import.sql")).execute(jdbcTemplate.getDataSource());
+        }
+    }
+
+    @EventListener(ContextClosedEvent.class)
+    public void saveOnShutdown() {
+        if (!enabled || !saveOnShutdown) {
+            return;
+        }
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Catalog snapshot '{}' not saved", file, e);
+        }
+    }
+
+    /**
+     * Write all books to the snapshot file, the previous snapshot is replaced once the new one is complete
+     */
+    public SnapshotReport save() throws IOException {
+        return save(file);
+    }
+
+    synchronized SnapshotReport save(Path snapshot) throws IOException {
+        final long start = System.nanoTime();
+        final Path absoluteFile = snapshot.toAbsolutePath();
+        Files.createDirectories(absoluteFile.getParent());
+        final Path temporaryFile = absoluteFile.resolveSibling(absoluteFile.getFileName() + ".tmp");
+
+        final long books;
+        final long authors;
+        try (SnapshotFile.Writer writer = SnapshotFile.write(temporaryFile)) {
+            jdbcTemplate.query(connection -> {
+                final PreparedStatement statement = connection.prepareStatement(SELECT_ALL_WITH_AUTHORS,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, new SnapshotRowCallbackHandler(writer));
+            books = writer.getBooks();
+            authors = writer.getAuthors();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporaryFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        lastSave = new SnapshotReport(snapshot.toString(), books, authors, Files.size(absoluteFile), elapsedMillis(start));
+        LOGGER.info("Catalog saved to snapshot: {}", lastSave);
+        return lastSave;
+    }
+
+    /**
+     * Replace all books by the ones of a snapshot
+     */
+    synchronized SnapshotReport load(Path snapshot) throws IOException {
+        final long start = System.nanoTime();
+        final BatchInserter inserter = new BatchInserter();
+
+        clear();
+        jdbcTemplate.execute("set referential_integrity false");
+        try {
+            for (String sql : DROP_INDEXES) {
+                jdbcTemplate.execute(sql);
+            }
+            try {
+                SnapshotFile.read(snapshot, inserter);
+                inserter.flush();
+            } catch (IOException | RuntimeException e) {
+                // leave empty tables, the indexes can be built again over them
+                clear();
+                throw e;
+            } finally {
+                for (String sql : CREATE_INDEXES) {
+                    jdbcTemplate.execute(sql);
+                }
+            }
+        } finally {
+            jdbcTemplate.execute("set referential_integrity true");
+        }
+
+        // the pooled optimizer hands out the ids below the value it reads, keep a whole allocation above the loaded ones
+        jdbcTemplate.execute("alter sequence book_seq restart with "
+                + Math.max(FIRST_GENERATED_ID, inserter.maxId + 1 + Book.BATCH_SIZE));
+
+        return new SnapshotReport(snapshot.toString(), inserter.books, inserter.authors, Files.size(snapshot),
+                elapsedMillis(start));
+    }
+
+    private void clear() {
+        jdbcTemplate.execute("delete from book_authors");
+        jdbcTemplate.execute("delete from book");
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * @return the startup load, null when the catalog was seeded from import.sql
+     */
+    public SnapshotReport getLastLoad() {
+        return lastLoad;
+    }
+
+    public SnapshotReport getLastSave() {
+        return lastSave;
+    }
+
+    /**
+     * Write the rows of SELECT_ALL_WITH_AUTHORS, a new book starts when the book id changes
+     */
+    private static class SnapshotRowCallbackHandler implements RowCallbackHandler {
+
+        private final SnapshotFile.Writer writer;
+
+        private Long bookId;
+
+        SnapshotRowCallbackHandler(SnapshotFile.Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                final long id = rs.getLong(1);
+                if (bookId == null || bookId != id) {
+                    bookId = id;
+                    final long isbnKey = rs.getLong(4);
+                    writer.book(id, rs.getLong(2), rs.getString(3), rs.wasNull() ? null : isbnKey,
+                            rs.getString(5), rs.getString(6), rs.getString(7));
+                }
+                rs.getLong(8);
+                if (!rs.wasNull()) {
+                    writer.author(rs.getString(9), rs.getString(10));
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Insert the rows of a snapshot by chunks
+     */
+    private class BatchInserter implements SnapshotFile.Visitor {
+
+        private final List<Object[]> bookRows = new ArrayList<>(CHUNK_SIZE);
+
+        private final List<Object[]> authorRows = new ArrayList<>(CHUNK_SIZE * 2);
+
+        private long books;
+
+        private long authors;
+
+        private long maxId;
+
+        @Override
+        public void book(long id, long version, String isbn, Long isbnKey, String title, String description,
+                         String publisher) {
+            if (bookRows.size() == CHUNK_SIZE) {
+                flush();
+            }
+            bookRows.add(new Object[] { id, version, isbn, isbnKey, title, description, publisher });
+            books++;
+            maxId = Math.max(maxId, id);
+        }
+
+        @Override
+        public void author(long bookId, String firstName, String lastName) {
+            authorRows.add(new Object[] { bookId, firstName, lastName });
+            authors++;
+        }
+
+        void flush() {
+            if (!bookRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_BOOK, bookRows);
+                bookRows.clear();
+            }
+            if (!authorRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_AUTHOR, authorRows);
+                authorRows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.github.sbouclier.javarestbooks.snapshot;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collections;
+
+/**
+ * Keeps Hibernate from replaying import.sql when the catalog is going to be loaded from a snapshot (see CatalogSnapshot).
+ *
+ * It runs after application.properties is read, the decision has to be taken before the EntityManagerFactory
+ * creates the schema.
+ */
+public class SnapshotEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    private static final String IMPORT_FILES_PROPERTY = "spring.jpa.properties.hibernate.hbm2ddl.import_files";
+
+    // a blank list would fall back to the default import.sql, a lone separator names no file
+    private static final String NO_IMPORT_FILES = ",";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        final boolean enabled = environment.getProperty("books.snapshot.enabled", Boolean.class, false);
+        final String file = environment.getProperty("books.snapshot.file", "books.snapshot");
+
+        if (enabled && Files.isRegularFile(Paths.get(file))) {
+            environment.getPropertySources().addFirst(new MapPropertySource("bookSnapshot",
+                    Collections.singletonMap(IMPORT_FILES_PROPERTY, NO_IMPORT_FILES)));
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
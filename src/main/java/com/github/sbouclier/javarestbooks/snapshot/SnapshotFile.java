@@ -0,0 +1,210 @@
+package com.github.sbouclier.javarestbooks.snapshot;
+
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of the book and book_authors tables.
+ *
+ * Layout, big-endian: a header (magic, format version), then one record per row tagged by a byte,
+ * a book record being followed by the records of its authors, and a trailer (end tag, book and author counts).
+ * Strings are a byte length (-1 for null) followed by their UTF-8 bytes.
+ *
+ * A snapshot is read memory-mapped, which limits it to 2 GB.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte END = 0;
+
+    private static final byte BOOK = 1;
+
+    private static final byte AUTHOR = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Rows of a snapshot, in file order: every author comes after its book
+     */
+    public interface Visitor {
+
+        void book(long id, long version, String isbn, Long isbnKey, String title, String description,
+                  String publisher);
+
+        void author(long bookId, String firstName, String lastName);
+    }
+
+    /**
+     * Read a whole snapshot
+     *
+     * @return number of books read
+     * @throws IllegalStateException if the file is not a snapshot or is truncated
+     */
+    public static long read(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("snapshot too large to be mapped: '" + file + "'");
+            }
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), file, visitor);
+        }
+    }
+
+    private static long read(ByteBuffer buffer, Path file, Visitor visitor) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+                throw new IllegalStateException("not a book snapshot: '" + file + "'");
+            }
+
+            final StringReader strings = new StringReader(buffer);
+            long books = 0;
+            long authors = 0;
+            long bookId = 0;
+            for (byte tag = buffer.get(); tag != END; tag = buffer.get()) {
+                if (tag == BOOK) {
+                    bookId = buffer.getLong();
+                    final long version = buffer.getLong();
+                    final String isbn = strings.next();
+                    final long isbnKey = buffer.getLong();
+                    visitor.book(bookId, version, isbn, isbnKey == Isbn.NO_KEY ? null : isbnKey,
+                            strings.next(), strings.next(), strings.next());
+                    books++;
+                } else if (tag == AUTHOR && books > 0) {
+                    visitor.author(bookId, strings.next(), strings.next());
+                    authors++;
+                } else {
+                    throw new IllegalStateException("corrupted book snapshot: '" + file + "'");
+                }
+            }
+
+            if (buffer.getLong() != books || buffer.getLong() != authors) {
+                throw new IllegalStateException("corrupted book snapshot: '" + file + "'");
+            }
+            return books;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("truncated book snapshot: '" + file + "'", e);
+        }
+    }
+
+    /**
+     * Start writing a snapshot, the file is replaced
+     */
+    public static Writer write(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    /**
+     * Sequential snapshot writer, the trailer is written on close
+     */
+    public static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+
+        private long books;
+
+        private long authors;
+
+        private Writer(Path file) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+        }
+
+        public void book(long id, long version, String isbn, Long isbnKey, String title, String description,
+                         String publisher) throws IOException {
+            out.writeByte(BOOK);
+            out.writeLong(id);
+            out.writeLong(version);
+            writeString(isbn);
+            out.writeLong(isbnKey == null ? Isbn.NO_KEY : isbnKey);
+            writeString(title);
+            writeString(description);
+            writeString(publisher);
+            books++;
+        }
+
+        /**
+         * Author of the last written book
+         */
+        public void author(String firstName, String lastName) throws IOException {
+            if (books == 0) {
+                throw new IllegalStateException("an author must follow its book");
+            }
+            out.writeByte(AUTHOR);
+            writeString(firstName);
+            writeString(lastName);
+            authors++;
+        }
+
+        public long getBooks() {
+            return books;
+        }
+
+        public long getAuthors() {
+            return authors;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                out.writeByte(END);
+                out.writeLong(books);
+                out.writeLong(authors);
+            } finally {
+                out.close();
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Decode strings of the mapped file through one reusable array
+     */
+    private static final class StringReader {
+
+        private final ByteBuffer buffer;
+
+        private byte[] bytes = new byte[256];
+
+        StringReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        String next() {
+            final int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.github.sbouclier.javarestbooks.writebehind;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of accepted description writes, replayed at startup so that writes acknowledged but not yet
+ * flushed survive a crash.
+ *
+ * Each record is the whole pending write of a book (see PendingDescription): on replay the record with the highest
+ * version of a book wins. Records are a length, the payload and its CRC32, a torn last record is ignored.
+ * The log is rewritten with the remaining pending writes after each flush, so it stays small.
+ */
+class DescriptionWriteLog {
+
+    // far above any record, a larger length can only come from a torn or corrupted record
+    private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+    private final Path file;
+
+    private final boolean fsync;
+
+    private FileChannel channel;
+
+    DescriptionWriteLog(Path file, boolean fsync) {
+        this.file = file;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Pending writes of the log by book id, the log stays open for appends
+     */
+    synchronized Map<Long, PendingDescription> open() throws IOException {
+        final Map<Long, PendingDescription> pending = new LinkedHashMap<>();
+        if (Files.isRegularFile(file)) {
+            try (InputStream in = Files.newInputStream(file)) {
+                final DataInputStream records = new DataInputStream(in);
+                for (PendingDescription write = read(records); write != null; write = read(records)) {
+                    pending.merge(write.getBookId(), write,
+                            (previous, next) -> next.version() >= previous.version() ? next : previous);
+                }
+            }
+        }
+        rewrite(pending.values());
+        return pending;
+    }
+
+    /**
+     * Append a write, it is on disk (or in the OS page cache without fsync) when this method returns
+     */
+    synchronized void append(PendingDescription write) {
+        try {
+            final ByteBuffer record = ByteBuffer.wrap(encode(write));
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Replace the log by the given writes, through a new file moved over the old one
+     */
+    synchronized void rewrite(Collection<PendingDescription> writes) throws IOException {
+        final Path absoluteFile = file.toAbsolutePath();
+        Files.createDirectories(absoluteFile.getParent());
+        final Path temporaryFile = absoluteFile.resolveSibling(absoluteFile.getFileName() + ".tmp");
+        try (FileChannel temporary = FileChannel.open(temporaryFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (PendingDescription write : writes) {
+                final ByteBuffer record = ByteBuffer.wrap(encode(write));
+                while (record.hasRemaining()) {
+                    temporary.write(record);
+                }
+            }
+            temporary.force(false);
+        }
+        close();
+        Files.move(temporaryFile, absoluteFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(absoluteFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static byte[] encode(PendingDescription write) throws IOException {
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        final DataOutputStream out = new DataOutputStream(payload);
+        out.writeLong(write.getBookId());
+        out.writeLong(write.getBaseVersion());
+        out.writeInt(write.getEdits());
+        out.writeUTF(write.getIsbn());
+        out.writeBoolean(write.getDescription() != null);
+        out.writeUTF(write.getDescription() != null ? write.getDescription() : "");
+
+        final CRC32 crc = new CRC32();
+        crc.update(payload.toByteArray());
+
+        final ByteArrayOutputStream record = new ByteArrayOutputStream(payload.size() + 12);
+        final DataOutputStream recordOut = new DataOutputStream(record);
+        recordOut.writeInt(payload.size());
+        payload.writeTo(recordOut);
+        recordOut.writeLong(crc.getValue());
+        return record.toByteArray();
+    }
+
+    /**
+     * @return the next record, null at the end of the log or on a torn record
+     */
+    private static PendingDescription read(DataInputStream in) throws IOException {
+        try {
+            final int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                return null;
+            }
+            final byte[] payload = new byte[length];
+            in.readFully(payload);
+            final CRC32 crc = new CRC32();
+            crc.update(payload);
+            if (in.readLong() != crc.getValue()) {
+                return null;
+            }
+
+            final DataInputStream fields = new DataInputStream(new ByteArrayInputStream(payload));
+            final long bookId = fields.readLong();
+            final long baseVersion = fields.readLong();
+            final int edits = fields.readInt();
+            final String isbn = fields.readUTF();
+            final boolean hasDescription = fields.readBoolean();
+            final String description = fields.readUTF();
+            return new PendingDescription(bookId, isbn, baseVersion, edits, hasDescription ? description : null, null);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.sbouclier.javarestbooks.writebehind;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.exception.InvalidDescriptionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind queue of description updates (PATCH), enabled with {@code books.write-behind.enabled}.
+ *
+ * An update is acknowledged once appended to the {@link DescriptionWriteLog}. Updates of the same book are coalesced
+ * into one pending write and a background worker flushes all pending writes in a single JDBC batch. Until then,
+ * BookCache serves the accepted description with the version the book will have once flushed, and reads of
+ * several books (lists, search, export) overlay it on the books they read: only the worker flushes.
+ *
+ * A flush is conditional on the version the book had when its first update was accepted: a book written
+ * meanwhile by another path (PUT, DELETE, bulk) keeps that write and its pending description is dropped.
+ */
+@Component
+public class DescriptionWriteQueue implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DescriptionWriteQueue.class);
+
+    /**
+     * Default length of the book description column, longer descriptions could not be flushed
+     */
+    public static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private static final String UPDATE_DESCRIPTION =
+            "update book set description = ?, version = version + ? where id = ? and version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final boolean enabled;
+
+    private final long flushIntervalMillis;
+
+    private final DescriptionWriteLog log;
+
+    private final ConcurrentMap<Long, PendingDescription> pending = new ConcurrentHashMap<>();
+
+    // events of the queue itself must not drop its pending writes
+    private final ThreadLocal<Boolean> publishing = ThreadLocal.withInitial(() -> false);
+
+    private final LongAdder accepted = new LongAdder();
+
+    private final LongAdder flushed = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private ScheduledExecutorService worker;
+
+    public DescriptionWriteQueue(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${books.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${books.write-behind.log:description-writes.log}") String log,
+                                 @Value("${books.write-behind.fsync:true}") boolean fsync,
+                                 @Value("${books.write-behind.flush-interval-ms:200}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.log = new DescriptionWriteLog(Paths.get(log), fsync);
+    }
+
+    /**
+     * Replay the log once the catalog is loaded, then start the worker
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            pending.putAll(log.open());
+        } catch (IOException e) {
+            throw new IllegalStateException("description write log cannot be opened", e);
+        }
+        if (!pending.isEmpty()) {
+            LOGGER.info("Replaying {} description writes from the log", pending.size());
+            flush();
+        }
+
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "description-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Accept the description of a book read through BookCache, the book is then published as updated
+     *
+     * @return the book as readers now see it, empty when the book changed since it was read
+     */
+    public Optional<Book> enqueue(Book book, String description) {
+        if (description.length() > MAX_DESCRIPTION_LENGTH) {
+            throw new InvalidDescriptionException(description.length(), MAX_DESCRIPTION_LENGTH);
+        }
+
+        PendingDescription previous;
+        PendingDescription write;
+        do {
+            previous = pending.get(book.getId());
+            if (previous != null && previous.version() != book.getVersion()) {
+                return Optional.empty();
+            }
+            write = previous == null ? PendingDescription.of(book, description) : previous.then(book, description);
+        } while (previous == null
+                ? pending.putIfAbsent(book.getId(), write) != null
+                : !pending.replace(book.getId(), previous, write));
+
+        try {
+            log.append(write);
+        } catch (RuntimeException e) {
+            // not acknowledged, readers must not see it
+            if (previous == null) {
+                pending.remove(book.getId(), write);
+            } else {
+                pending.replace(book.getId(), write, previous);
+            }
+            throw e;
+        }
+        accepted.increment();
+        publish(BookEvent.updated(book.getIsbn(), write.getBook()));
+        return Optional.of(write.getBook());
+    }
+
+    /**
+     * @return the accepted form of a book read from the database, the book itself when it has no pending write
+     */
+    public Book overlay(Book book) {
+        // books read without their id or version are left as they are
+        if (pending.isEmpty() || book.getId() == null || book.getVersion() == null) {
+            return book;
+        }
+        final PendingDescription write = pending.get(book.getId());
+        return write != null && write.getBook() != null && write.getBaseVersion() == book.getVersion()
+                ? write.getBook()
+                : book;
+    }
+
+    /**
+     * @return the version readers see for a book read from the database with the given version
+     */
+    public Long version(Long bookId, Long version) {
+        final PendingDescription write = pending.get(bookId);
+        return write != null && write.getBaseVersion() == version ? write.version() : version;
+    }
+
+    /**
+     * Write all pending descriptions in one batch
+     */
+    public void flush() {
+        if (!pending.isEmpty()) {
+            flushPending();
+        }
+    }
+
+    private synchronized void flushPending() {
+        final List<PendingDescription> writes = new ArrayList<>(pending.values());
+        final List<Object[]> rows = new ArrayList<>(writes.size());
+        for (PendingDescription write : writes) {
+            rows.add(new Object[] { write.getDescription(), write.getEdits(), write.getBookId(), write.getBaseVersion() });
+        }
+        final int[] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(UPDATE_DESCRIPTION, rows));
+        batches.increment();
+
+        for (int i = 0; i < writes.size(); i++) {
+            final PendingDescription write = writes.get(i);
+            if (counts[i] > 0) {
+                // updates accepted during the flush stay pending, over the version just written
+                final PendingDescription remaining = pending.computeIfPresent(write.getBookId(),
+                        (id, current) -> current == write ? null : current.after(write));
+                flushed.add(write.getEdits());
+
+                // books read from the database during the flush may have been cached without their description
+                final Book book = remaining != null ? remaining.getBook() : write.getBook();
+                if (book != null) {
+                    publish(BookEvent.updated(write.getIsbn(), book));
+                }
+            } else {
+                pending.computeIfPresent(write.getBookId(),
+                        (id, current) -> current.getBaseVersion() == write.getBaseVersion() ? null : current);
+                dropped.add(write.getEdits());
+            }
+        }
+
+        try {
+            log.rewrite(pending.values());
+        } catch (IOException e) {
+            // the log only keeps growing until the next rewrite
+            LOGGER.warn("Description write log not rewritten", e);
+        }
+    }
+
+    /**
+     * Another write of a book supersedes its pending description, once committed: a write rolled back (an import
+     * chunk for instance) leaves it pending
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookEvent(BookEvent event) {
+        if (pending.isEmpty() || publishing.get() || event.getType() == BookEvent.Type.CREATED) {
+            return;
+        }
+        if (event.getBook() != null && event.getBook().getId() != null) {
+            pending.remove(event.getBook().getId());
+        } else {
+            final String isbn = Isbn.canonical(event.getIsbn());
+            pending.values().removeIf(write -> Isbn.canonical(write.getIsbn()).equals(isbn));
+        }
+    }
+
+    /**
+     * Flush before the catalog snapshot is saved (see CatalogSnapshot)
+     */
+    @EventListener(ContextClosedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void stop() throws IOException {
+        if (worker == null) {
+            return;
+        }
+        worker.shutdown();
+        flushQuietly();
+        log.close();
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    public int size() {
+        return pending.size();
+    }
+
+    /**
+     * Number of accepted updates
+     */
+    public long acceptedCount() {
+        return accepted.sum();
+    }
+
+    /**
+     * Number of accepted updates written to the database, coalesced ones included
+     */
+    public long flushedCount() {
+        return flushed.sum();
+    }
+
+    /**
+     * Number of accepted updates superseded by another write of their book
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // pending writes are kept, the next flush retries them
+            LOGGER.warn("Description writes not flushed", e);
+        }
+    }
+
+    private void publish(BookEvent event) {
+        publishing.set(true);
+        try {
+            eventPublisher.publishEvent(event);
+        } finally {
+            publishing.set(false);
+        }
+    }
+}
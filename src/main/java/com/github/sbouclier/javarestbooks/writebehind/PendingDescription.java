@@ -0,0 +1,92 @@
+package com.github.sbouclier.javarestbooks.writebehind;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+
+/**
+ * Accepted description of a book not yet written to the database, immutable.
+ *
+ * The book had {@code baseVersion} in the database when the first of the coalesced {@code edits} was accepted:
+ * once flushed it will have {@code baseVersion + edits}, the version readers already see.
+ */
+final class PendingDescription {
+
+    private final long bookId;
+
+    private final String isbn;
+
+    private final long baseVersion;
+
+    private final int edits;
+
+    private final String description;
+
+    // book as readers see it, null for writes replayed from the log
+    private final Book book;
+
+    PendingDescription(long bookId, String isbn, long baseVersion, int edits, String description, Book book) {
+        this.bookId = bookId;
+        this.isbn = isbn;
+        this.baseVersion = baseVersion;
+        this.edits = edits;
+        this.description = description;
+        this.book = book;
+    }
+
+    /**
+     * First edit of a book read with its database version
+     */
+    static PendingDescription of(Book book, String description) {
+        return new PendingDescription(book.getId(), book.getIsbn(), book.getVersion(), 1, description,
+                book.withDescription(description));
+    }
+
+    /**
+     * One more edit over this one, of a book read with the version of this one
+     */
+    PendingDescription then(Book book, String description) {
+        return new PendingDescription(bookId, book.getIsbn(), baseVersion, edits + 1, description,
+                book.withDescription(description));
+    }
+
+    /**
+     * Remaining edits once the given earlier state of this book was flushed
+     */
+    PendingDescription after(PendingDescription flushed) {
+        return new PendingDescription(bookId, isbn, flushed.version(), edits - flushed.edits, description, book);
+    }
+
+    /**
+     * Version of the book once flushed
+     */
+    long version() {
+        return baseVersion + edits;
+    }
+
+    // -----------
+    // - GETTERS -
+    // -----------
+
+    long getBookId() {
+        return bookId;
+    }
+
+    String getIsbn() {
+        return isbn;
+    }
+
+    long getBaseVersion() {
+        return baseVersion;
+    }
+
+    int getEdits() {
+        return edits;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    Book getBook() {
+        return book;
+    }
+}
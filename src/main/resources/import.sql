@@ -1,8 +1,8 @@
 -- books
-insert into book(isbn,title,publisher) values ('978-0321356680','Effective Java','Addison Wesley');
-insert into book(isbn,title,publisher) values ('978-1617292545','Spring Boot in Action','Manning Publications');
-insert into book(isbn,title,publisher) values ('978-1491900864','Java 8 Pocket Guide','O''Reilly');
-insert into book(isbn,title,publisher) values ('978-0321349606','Java Concurrency in Practice','Addison Wesley');
+insert into book(id,version,isbn,isbn_key,title,publisher) values (1,0,'978-0321356680',9780321356680,'Effective Java','Addison Wesley');
+insert into book(id,version,isbn,isbn_key,title,publisher) values (2,0,'978-1617292545',9781617292545,'Spring Boot in Action','Manning Publications');
+insert into book(id,version,isbn,isbn_key,title,publisher) values (3,0,'978-1491900864',9781491900864,'Java 8 Pocket Guide','O''Reilly');
+insert into book(id,version,isbn,isbn_key,title,publisher) values (4,0,'978-0321349606',9780321349606,'Java Concurrency in Practice','Addison Wesley');
 
 -- authors
 insert into book_authors(book_id,first_name,last_name) values (1,'Joshua', 'Blosh');
@@ -0,0 +1,150 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.*;
+
+/**
+ * BookCache test
+ */
+public class BookCacheTest {
+
+    private BookRepository bookRepository;
+
+    private DescriptionWriteQueue descriptionWriteQueue;
+
+    private BookCache bookCache;
+
+    @Before
+    public void setUp() {
+        bookRepository = mock(BookRepository.class);
+        descriptionWriteQueue = mock(DescriptionWriteQueue.class);
+        when(descriptionWriteQueue.overlay(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        bookCache = new BookCache(bookRepository, new IsbnFilter(bookRepository), descriptionWriteQueue, 2, 600);
+    }
+
+    @Test
+    public void should_load_book_once_and_serve_next_lookups_from_cache() {
+
+        // Given
+        final Book book = new Book("978-0321356680", "Effective Java", "Addison Wesley");
+        book.addAuthor(new Author("Joshua", "Bloch"));
+        when(bookRepository.findByIsbnKey(9780321356680L)).thenReturn(Optional.of(book));
+
+        // When
+        final Optional<Book> first = bookCache.findByIsbn("978-0321356680");
+        final Optional<Book> second = bookCache.findByIsbn("978-0321356680");
+
+        // Then
+        assertThat(first.get(), is(sameInstance(book)));
+        assertThat(second.get(), is(sameInstance(book)));
+        verify(bookRepository, times(1)).findByIsbnKey(9780321356680L);
+        assertThat(bookCache.stats().hitCount(), is(1L));
+        assertThat(bookCache.stats().missCount(), is(1L));
+    }
+
+    @Test
+    public void should_not_cache_unknown_book() {
+
+        // Given
+        when(bookRepository.findByIsbnKey(1234567890L)).thenReturn(Optional.empty());
+
+        // When
+        bookCache.findByIsbn("000-1234567890");
+        final Optional<Book> book = bookCache.findByIsbn("000-1234567890");
+
+        // Then
+        assertThat(book.isPresent(), is(false));
+        verify(bookRepository, times(2)).findByIsbnKey(1234567890L);
+    }
+
+    @Test
+    public void should_reload_book_after_eviction() {
+
+        // Given
+        final Book book = new Book("978-0321356680", "Effective Java", "Addison Wesley");
+        when(bookRepository.findByIsbnKey(9780321356680L)).thenReturn(Optional.of(book));
+        bookCache.findByIsbn("978-0321356680");
+
+        // When
+        bookCache.evict("978-0321356680");
+        bookCache.findByIsbn("978-0321356680");
+
+        // Then
+        verify(bookRepository, times(2)).findByIsbnKey(9780321356680L);
+    }
+
+    @Test
+    public void should_answer_isbn_rejected_by_filter_without_repository() {
+
+        // Given
+        final IsbnFilter isbnFilter = new IsbnFilter(bookRepository);
+        isbnFilter.load();
+        isbnFilter.add("978-0321356680");
+        bookCache = new BookCache(bookRepository, isbnFilter, descriptionWriteQueue, 2, 600);
+
+        // When
+        final Optional<Book> book = bookCache.findByIsbn("978-1617292545");
+
+        // Then
+        assertThat(book.isPresent(), is(false));
+        assertThat(isbnFilter.rejectionCount(), is(1L));
+        verify(bookRepository, never()).findByIsbnKey(anyLong());
+    }
+
+    @Test
+    public void should_load_missing_books_together_and_serve_cached_ones() {
+
+        // Given
+        final Book effectiveJava = new Book("978-0321356680", "Effective Java", "Addison Wesley");
+        final Book springBoot = new Book("978-1617292545", "Spring Boot in Action", "Manning Publications");
+        when(bookRepository.findByIsbnKey(9780321356680L)).thenReturn(Optional.of(effectiveJava));
+        when(bookRepository.findWithAuthorsByIsbnKeyIn(anyCollection())).thenReturn(Arrays.asList(springBoot));
+        bookCache.findByIsbn("978-0321356680");
+
+        // When
+        final Map<String, Book> books = bookCache.findAllByIsbn(
+                Arrays.asList("978-0321356680", "978-1617292545", "978-0000000000"));
+        final Optional<Book> cached = bookCache.peek("978-1617292545");
+
+        // Then
+        assertThat(books.size(), is(2));
+        assertThat(books.get("9780321356680"), is(sameInstance(effectiveJava)));
+        assertThat(books.get("9781617292545"), is(sameInstance(springBoot)));
+        verify(bookRepository).findWithAuthorsByIsbnKeyIn(Arrays.asList(9781617292545L, 9780000000000L));
+        verify(bookRepository, never()).findWithAuthorsByIsbnIn(anyCollection());
+        assertThat(cached.get(), is(sameInstance(springBoot)));
+    }
+
+    @Test
+    public void should_not_cache_books_loaded_together_while_one_is_evicted() {
+
+        // Given
+        final Book springBoot = new Book("978-1617292545", "Spring Boot in Action", "Manning Publications");
+        when(bookRepository.findWithAuthorsByIsbnKeyIn(anyCollection())).thenAnswer(invocation -> {
+            // written by another request once read
+            bookCache.evict("978-1617292545");
+            return Arrays.asList(springBoot);
+        });
+
+        // When
+        final Map<String, Book> books = bookCache.findAllByIsbn(Arrays.asList("978-1617292545"));
+        final Optional<Book> cached = bookCache.peek("978-1617292545");
+
+        // Then
+        assertThat(books.get("9781617292545"), is(sameInstance(springBoot)));
+        assertThat(cached.isPresent(), is(false));
+    }
+}
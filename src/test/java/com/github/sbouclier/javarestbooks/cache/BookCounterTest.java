@@ -0,0 +1,109 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * BookCounter test, not transactional: the in-memory total follows committed writes only
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class, properties = "books.count.reconcile-interval-ms=0")
+public class BookCounterTest {
+
+    @Autowired
+    private BookCounter bookCounter;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @After
+    public void tearDown() {
+        bookRepository.deleteByIsbn("978-1234567897");
+        jdbcTemplate.update("delete from book where id = 999");
+        bookCounter.reconcile();
+    }
+
+    @Test
+    public void should_count_committed_creates_and_deletes() {
+        // Given
+        final long total = bookCounter.total();
+
+        // When
+        bookRepository.insert(newBook());
+
+        // Then
+        assertThat(bookCounter.total(), is(total + 1));
+        assertThat(storedTotal(), is(total + 1));
+
+        // When
+        bookRepository.deleteByIsbn("978-1234567897");
+
+        // Then
+        assertThat(bookCounter.total(), is(total));
+        assertThat(storedTotal(), is(total));
+    }
+
+    @Test
+    public void should_not_count_rolled_back_creates() {
+        // Given
+        final long total = bookCounter.total();
+
+        // When
+        new TransactionTemplate(transactionManager).execute(status -> {
+            bookRepository.insert(newBook());
+            status.setRollbackOnly();
+            return null;
+        });
+
+        // Then
+        assertThat(bookCounter.total(), is(total));
+        assertThat(storedTotal(), is(total));
+    }
+
+    @Test
+    public void should_correct_books_written_outside_repository() {
+        // Given
+        final long total = bookCounter.total();
+        final long corrections = bookCounter.correctionCount();
+        jdbcTemplate.update("insert into book(id,version,isbn,title,publisher) values (999,0,'999','Outside','Publisher')");
+
+        // When
+        final long reconciled = bookCounter.reconcile();
+
+        // Then
+        assertThat(reconciled, is(total + 1));
+        assertThat(bookCounter.total(), is(total + 1));
+        assertThat(storedTotal(), is(total + 1));
+        assertThat(bookCounter.correctionCount(), is(corrections + 1));
+    }
+
+    private long storedTotal() {
+        return jdbcTemplate.queryForObject("select total from book_count", Long.class);
+    }
+
+    private static Book newBook() {
+        return new Book("978-1234567897", "Counted", Collections.singleton(new Author("Jane", "Doe")), "Publisher");
+    }
+}
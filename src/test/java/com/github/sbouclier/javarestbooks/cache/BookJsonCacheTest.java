@@ -0,0 +1,132 @@
+package com.github.sbouclier.javarestbooks.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * BookJsonCache test
+ */
+public class BookJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BookCache bookCache;
+
+    private Book book;
+
+    @Before
+    public void setUp() {
+        bookCache = mock(BookCache.class);
+        book = new Book("978-0321356680", "Effective Java", "Addison Wesley");
+        book.addAuthor(new Author("Joshua", "Bloch"));
+        when(bookCache.findByIsbn("978-0321356680")).thenReturn(Optional.of(book));
+    }
+
+    @Test
+    public void should_serialize_book_once_and_serve_next_lookups_from_cache() throws IOException {
+
+        // Given
+        final BookJsonCache bookJsonCache = new BookJsonCache(bookCache, objectMapper, 1024 * 1024, false, false, 600);
+
+        // When
+        final BookJson first = bookJsonCache.findByIsbn("978-0321356680").get();
+        final BookJson second = bookJsonCache.findByIsbn("978-0321356680").get();
+
+        // Then
+        assertThat(second, is(sameInstance(first)));
+        assertThat(bytes(first.getContent()), is(objectMapper.writeValueAsBytes(book)));
+        assertThat(first.encoded(true), is(sameInstance(first)));
+        verify(bookCache, times(1)).findByIsbn("978-0321356680");
+    }
+
+    @Test
+    public void should_keep_gzipped_json_off_heap() throws IOException {
+
+        // Given
+        final BookJsonCache bookJsonCache = new BookJsonCache(bookCache, objectMapper, 1024 * 1024, true, true, 600);
+
+        // When
+        final BookJson json = bookJsonCache.findByIsbn("978-0321356680").get();
+        final BookJson gzipped = json.encoded(true);
+
+        // Then
+        assertThat(json.getContent().isDirect(), is(true));
+        assertThat(json.isGzip(), is(false));
+        assertThat(gzipped.isGzip(), is(true));
+        assertThat(gunzip(bytes(gzipped.getContent())), is(bytes(json.getContent())));
+        assertThat(bookJsonCache.weightedSize(), is((long) json.getContentLength() + gzipped.getContentLength()));
+    }
+
+    @Test
+    public void should_evict_json_of_updated_book_after_the_book() {
+
+        // Given
+        final BookRepository bookRepository = mock(BookRepository.class);
+        final DescriptionWriteQueue descriptionWriteQueue = mock(DescriptionWriteQueue.class);
+        when(descriptionWriteQueue.overlay(any(Book.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(bookRepository.findByIsbnKey(9780321356680L)).thenReturn(Optional.of(book));
+        final BookCache realBookCache =
+                new BookCache(bookRepository, new IsbnFilter(bookRepository), descriptionWriteQueue, 10, 600);
+        final BookJsonCache bookJsonCache =
+                new BookJsonCache(realBookCache, objectMapper, 1024 * 1024, false, false, 600);
+        final BookJson first = bookJsonCache.findByIsbn("978-0321356680").get();
+
+        // When
+        realBookCache.onBookEvent(BookEvent.updated("978-0321356680", book));
+
+        // Then
+        assertThat(bookJsonCache.findByIsbn("978-0321356680").get(), is(not(sameInstance(first))));
+        verify(bookRepository, times(2)).findByIsbnKey(9780321356680L);
+    }
+
+    @Test
+    public void should_not_cache_unknown_book() {
+
+        // Given
+        final BookJsonCache bookJsonCache = new BookJsonCache(bookCache, objectMapper, 1024 * 1024, false, false, 600);
+        when(bookCache.findByIsbn("978-1234567897")).thenReturn(Optional.empty());
+
+        // When
+        final Optional<BookJson> json = bookJsonCache.findByIsbn("978-1234567897");
+
+        // Then
+        assertThat(json.isPresent(), is(false));
+        assertThat(bookJsonCache.size(), is(0L));
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static byte[] gunzip(byte[] bytes) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            final byte[] buffer = new byte[1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}
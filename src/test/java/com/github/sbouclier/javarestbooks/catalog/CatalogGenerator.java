@@ -0,0 +1,132 @@
+package com.github.sbouclier.javarestbooks.catalog;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generate a reproducible catalog of books: the same seed always gives the same books.
+ *
+ * ISBNs are valid 13 digit ISBNs with the 979 prefix, they never collide with the ISBNs of import.sql.
+ * Most books have one or two authors and a few up to six, descriptions are missing for one book in five and
+ * otherwise spread from a sentence to the 255 characters of the column.
+ */
+public class CatalogGenerator {
+
+    public static final long DEFAULT_SEED = 42L;
+
+    private static final String[] TITLE_WORDS = {
+            "Java", "Spring", "Effective", "Modern", "Concurrency", "Patterns", "Practice", "Action", "Guide",
+            "Reactive", "Microservices", "Cloud", "Data", "Design", "Testing", "Performance", "Clean", "Code",
+            "Architecture", "Functional", "Programming", "Systems", "Distributed", "Refactoring", "Domain"
+    };
+
+    private static final String[] FIRST_NAMES = {
+            "Joshua", "Brian", "Craig", "Robert", "Patricia", "Martin", "Kent", "Rebecca", "Venkat", "Heinz",
+            "Trisha", "Josh", "Mark", "Sam", "Maria", "Julia", "Emily", "Daniel", "Nicolas", "Stéphane"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Bloch", "Goetz", "Walls", "Liguori", "Fowler", "Beck", "Parsons", "Subramaniam", "Kabutz", "Gee",
+            "Long", "Heckler", "Newman", "Evans", "Vernon", "Martin", "Feathers", "Hunt", "Thomas", "Bouclier"
+    };
+
+    private static final String[] PUBLISHERS = {
+            "Addison Wesley", "Manning Publications", "O'Reilly", "Pragmatic Bookshelf", "Packt", "Apress",
+            "No Starch Press", "Prentice Hall"
+    };
+
+    private static final String[] DESCRIPTION_WORDS = {
+            "a", "the", "of", "and", "to", "in", "for", "with", "how", "your", "book", "guide", "developers",
+            "applications", "teaches", "explains", "practical", "examples", "real", "world", "techniques",
+            "best", "practices", "patterns", "building", "scalable", "robust", "maintainable", "software",
+            "edition", "updated", "covers", "new", "features", "chapter", "readers", "learn", "write", "fast"
+    };
+
+    // cumulated percentages of books with 1 to 6 authors
+    private static final int[] AUTHOR_COUNT_PERCENTILES = { 55, 80, 90, 95, 98, 100 };
+
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+
+    private final Random random;
+
+    private int next;
+
+    public CatalogGenerator() {
+        this(DEFAULT_SEED);
+    }
+
+    public CatalogGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * ISBN of the n-th generated book
+     */
+    public static String isbn(int n) {
+        final String digits = String.format("979%09d", n);
+        int sum = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            sum += (i % 2 == 0 ? 1 : 3) * (digits.charAt(i) - '0');
+        }
+        return digits.substring(0, 3) + "-" + digits.substring(3) + (10 - sum % 10) % 10;
+    }
+
+    public Book next() {
+        final int n = next++;
+        final Book book = new Book(isbn(n), title(), PUBLISHERS[random.nextInt(PUBLISHERS.length)]);
+        final int authors = authorCount();
+        // authors are a set, a name drawn twice is drawn again
+        while (book.getAuthors().size() < authors) {
+            book.addAuthor(new Author(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+                    LAST_NAMES[random.nextInt(LAST_NAMES.length)]));
+        }
+        if (random.nextInt(5) > 0) {
+            book.setDescription(description(book.getTitle()));
+        }
+        return book;
+    }
+
+    public List<Book> next(int count) {
+        final List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            books.add(next());
+        }
+        return books;
+    }
+
+    private int authorCount() {
+        final int percentile = random.nextInt(100);
+        int count = 1;
+        while (percentile >= AUTHOR_COUNT_PERCENTILES[count - 1]) {
+            count++;
+        }
+        return count;
+    }
+
+    private String description(String title) {
+        // log-normal length, median around 130 characters
+        final int length = (int) Math.min(MAX_DESCRIPTION_LENGTH, 130 * Math.exp(0.6 * random.nextGaussian()));
+        final StringBuilder description = new StringBuilder("A book about ").append(title.toLowerCase());
+        while (description.length() < length) {
+            description.append(' ').append(DESCRIPTION_WORDS[random.nextInt(DESCRIPTION_WORDS.length)]);
+        }
+        description.setLength(Math.min(description.length(), MAX_DESCRIPTION_LENGTH - 1));
+        return description.append('.').toString();
+    }
+
+    private String title() {
+        final int words = 2 + random.nextInt(4);
+        final StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        return title.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.sbouclier.javarestbooks.catalog;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * CatalogGenerator test
+ */
+public class CatalogGeneratorTest {
+
+    @Test
+    public void should_generate_same_catalog_from_same_seed() {
+        // Given
+        List<Book> books = new CatalogGenerator(7).next(100);
+
+        // When
+        List<Book> sameBooks = new CatalogGenerator(7).next(100);
+
+        // Then
+        for (int i = 0; i < books.size(); i++) {
+            assertThat(sameBooks.get(i).getIsbn(), is(books.get(i).getIsbn()));
+            assertThat(sameBooks.get(i).getTitle(), is(books.get(i).getTitle()));
+            assertThat(sameBooks.get(i).getDescription(), is(books.get(i).getDescription()));
+            assertThat(sameBooks.get(i).getAuthors(), is(books.get(i).getAuthors()));
+        }
+    }
+
+    @Test
+    public void should_generate_valid_and_distinct_isbns() {
+        Set<Long> keys = new HashSet<>();
+        for (Book book : new CatalogGenerator().next(10000)) {
+            assertThat(book.getIsbnKey(), is(Isbn.toKey(book.getIsbn())));
+            assertThat(book.getIsbnKey(), is(not(Isbn.NO_KEY)));
+            keys.add(book.getIsbnKey());
+        }
+        assertThat(keys, hasSize(10000));
+    }
+
+    @Test
+    public void should_generate_books_fitting_the_schema() {
+        int withoutDescription = 0;
+        int withManyAuthors = 0;
+        for (Book book : new CatalogGenerator().next(10000)) {
+            assertThat(book.getAuthors().size(), is(both(greaterThanOrEqualTo(1)).and(lessThanOrEqualTo(6))));
+            if (book.getAuthors().size() > 3) {
+                withManyAuthors++;
+            }
+            if (book.getDescription() == null) {
+                withoutDescription++;
+            } else {
+                assertThat(book.getDescription().length(), is(lessThanOrEqualTo(255)));
+            }
+        }
+        assertThat(withoutDescription, is(both(greaterThan(1500)).and(lessThan(2500))));
+        assertThat(withManyAuthors, is(both(greaterThan(0)).and(lessThan(1500))));
+    }
+}
@@ -0,0 +1,168 @@
+package com.github.sbouclier.javarestbooks.changefeed;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.exception.InvalidSequenceException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * BookChangeLog test
+ */
+public class BookChangeLogTest {
+
+    // runs sender tasks only when asked, like a consumer slower than the writes
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    private final Executor queuedExecutor = tasks::add;
+
+    private final RecordingSender sender = new RecordingSender();
+
+    private static BookEvent updated(String isbn) {
+        return BookEvent.updated(isbn, new Book(isbn, "Title", "Publisher"));
+    }
+
+    private void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    public void should_number_changes_and_read_retained_ones_after_a_sequence() {
+
+        // Given
+        final BookChangeLog log = new BookChangeLog(3, 10, 10);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            log.append(updated("978-000000000" + i));
+        }
+
+        // Then
+        assertThat(log.lastSequence(), is(4L));
+        assertThat(sequences(log.since(1, 10)), contains(2L, 3L, 4L));
+        assertThat(sequences(log.since(2, 1)), contains(3L));
+        assertThat(log.since(4, 10), is(empty()));
+    }
+
+    @Test(expected = InvalidSequenceException.class)
+    public void should_not_read_changes_no_longer_retained() {
+
+        // Given
+        final BookChangeLog log = new BookChangeLog(3, 10, 10);
+        for (int i = 0; i < 4; i++) {
+            log.append(updated("978-000000000" + i));
+        }
+
+        // When
+        log.since(0, 10);
+    }
+
+    @Test
+    public void should_send_retained_changes_then_new_ones() {
+
+        // Given
+        final BookChangeLog log = new BookChangeLog(10, 10, 10);
+        log.append(updated("978-0000000001"));
+        log.append(BookEvent.deleted("978-0000000002"));
+
+        // When
+        final BookChangeSubscriber subscriber = log.subscribe(0, sender, Runnable::run);
+        log.append(updated("978-0000000003"));
+
+        // Then
+        assertThat(sender.batches, is(Arrays.asList(Arrays.asList(1L, 2L), Arrays.asList(3L))));
+        assertThat(subscriber.isLive(), is(true));
+        assertThat(subscriber.position(), is(3L));
+    }
+
+    @Test
+    public void should_compact_changes_of_the_same_book_for_a_slow_consumer() {
+
+        // Given
+        final BookChangeLog log = new BookChangeLog(10, 10, 10);
+        log.subscribe(0, sender, queuedExecutor);
+
+        // When
+        log.append(updated("978-0000000001"));
+        log.append(updated("978-0000000002"));
+        log.append(updated("978-0000000001"));
+        log.append(BookEvent.deleted("978-0000000002"));
+        log.append(BookEvent.updated("978-0000000001", new Book("978-0000000003", "Title", "Publisher")));
+        runTasks();
+
+        // Then
+        assertThat(sender.batches, is(Arrays.asList(Arrays.asList(3L, 4L, 5L))));
+    }
+
+    @Test
+    public void should_catch_up_from_the_log_when_the_buffer_overflows() {
+
+        // Given
+        final BookChangeLog log = new BookChangeLog(10, 2, 2);
+        final BookChangeSubscriber subscriber = log.subscribe(0, sender, queuedExecutor);
+
+        // When
+        log.append(updated("978-0000000001"));
+        log.append(updated("978-0000000002"));
+        log.append(updated("978-0000000003"));
+        assertThat(subscriber.isLive(), is(false));
+        runTasks();
+
+        // Then
+        assertThat(sender.batches, is(Arrays.asList(Arrays.asList(1L, 2L), Arrays.asList(3L))));
+        assertThat(subscriber.isLive(), is(true));
+        assertThat(sender.closed, is(false));
+    }
+
+    @Test
+    public void should_close_subscriber_behind_the_retained_changes() {
+
+        // Given
+        final BookChangeLog log = new BookChangeLog(2, 1, 10);
+        log.subscribe(0, sender, queuedExecutor);
+
+        // When
+        log.append(updated("978-0000000001"));
+        log.append(updated("978-0000000002"));
+        log.append(updated("978-0000000003"));
+        runTasks();
+
+        // Then
+        assertThat(sender.batches, is(empty()));
+        assertThat(sender.closed, is(true));
+        assertThat(log.subscriberCount(), is(0));
+    }
+
+    private static List<Long> sequences(List<BookChange> changes) {
+        return changes.stream().map(BookChange::getSequence).collect(Collectors.toList());
+    }
+
+    private static class RecordingSender implements BookChangeSender {
+
+        private final List<List<Long>> batches = new ArrayList<>();
+
+        private boolean closed;
+
+        @Override
+        public void send(List<BookChange> changes) {
+            batches.add(sequences(changes));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
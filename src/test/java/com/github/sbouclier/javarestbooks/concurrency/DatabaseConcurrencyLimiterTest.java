@@ -0,0 +1,110 @@
+package com.github.sbouclier.javarestbooks.concurrency;
+
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.exception.DatabaseBusyException;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.hibernate.collection.internal.PersistentSet;
+import org.junit.Test;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * DatabaseConcurrencyLimiter test
+ */
+public class DatabaseConcurrencyLimiterTest {
+
+    @Test
+    public void should_reject_call_when_no_slot_is_released_in_time() throws Throwable {
+
+        // Given
+        final DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(1, 50);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final ProceedingJoinPoint slowCall = mock(ProceedingJoinPoint.class);
+        when(slowCall.proceed()).then(invocation -> {
+            started.countDown();
+            release.await();
+            return "slow";
+        });
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Object> slowResult = executor.submit(() -> {
+                try {
+                    return limiter.limit(slowCall);
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            started.await(5, TimeUnit.SECONDS);
+
+            // When
+            try {
+                limiter.limit(mock(ProceedingJoinPoint.class));
+                throw new AssertionError("the call should have been rejected");
+            } catch (DatabaseBusyException e) {
+                // Then
+                assertThat(limiter.getRejections(), is(1L));
+                assertThat(limiter.getInUse(), is(1));
+            }
+
+            release.countDown();
+            assertThat(slowResult.get(5, TimeUnit.SECONDS), is("slow"));
+            assertThat(limiter.getInUse(), is(0));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void should_reuse_slot_for_nested_calls() throws Throwable {
+
+        // Given
+        final DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(1, 50);
+        final ProceedingJoinPoint innerCall = mock(ProceedingJoinPoint.class);
+        when(innerCall.proceed()).thenReturn("inner");
+        final ProceedingJoinPoint outerCall = mock(ProceedingJoinPoint.class);
+        when(outerCall.proceed()).then(invocation -> limiter.limit(innerCall));
+
+        // When
+        final Object result = limiter.limit(outerCall);
+
+        // Then
+        assertThat(result, is("inner"));
+        assertThat(limiter.getRejections(), is(0L));
+        assertThat(limiter.getInUse(), is(0));
+    }
+
+    @Test
+    public void should_load_authors_of_returned_books_before_releasing_slot() throws Throwable {
+
+        // Given
+        final DatabaseConcurrencyLimiter limiter = new DatabaseConcurrencyLimiter(1, 50);
+        final PersistentSet authors = mock(PersistentSet.class);
+        final int[] inUseWhileLoading = { -1 };
+        doAnswer(invocation -> inUseWhileLoading[0] = limiter.getInUse()).when(authors).forceInitialization();
+        final Book book = new Book("9780132350884", "Clean Code", "Prentice Hall");
+        book.setAuthors(authors);
+        final ProceedingJoinPoint call = mock(ProceedingJoinPoint.class);
+        when(call.proceed()).thenReturn(new PageImpl<>(Collections.singletonList(book)));
+
+        // When
+        limiter.limit(call);
+
+        // Then
+        assertThat(inUseWhileLoading[0], is(1));
+        assertThat(limiter.getInUse(), is(0));
+    }
+}
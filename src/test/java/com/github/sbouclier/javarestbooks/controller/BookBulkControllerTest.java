@@ -0,0 +1,271 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.domain.Isbn;
+import com.github.sbouclier.javarestbooks.dto.BatchItemResult;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.importer.BookImporter;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import com.github.sbouclier.javarestbooks.writebehind.DescriptionWriteQueue;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.Is.is;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * BookBulkController test
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class)
+@AutoConfigureMockMvc
+@Transactional
+public class BookBulkControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private Validator validator;
+
+    private HttpMessageConverter mappingJackson2HttpMessageConverter;
+
+    @Autowired
+    void setConverters(HttpMessageConverter<?>[] converters) {
+        this.mappingJackson2HttpMessageConverter = Arrays.asList(converters).stream()
+                .filter(hmc -> hmc instanceof MappingJackson2HttpMessageConverter).findAny().get();
+        Assert.assertNotNull("the JSON message converter must not be null", this.mappingJackson2HttpMessageConverter);
+    }
+
+    @SuppressWarnings("unchecked")
+    protected String json(Object o) throws IOException {
+        MockHttpOutputMessage mockHttpOutputMessage = new MockHttpOutputMessage();
+        this.mappingJackson2HttpMessageConverter.write(o, MediaType.APPLICATION_JSON, mockHttpOutputMessage);
+        return mockHttpOutputMessage.getBodyAsString();
+    }
+
+    private static Book book(String isbn, String title) {
+        Book book = new Book(isbn, title, "Publisher");
+        book.addAuthor(new Author("John", "Doe"));
+        return book;
+    }
+
+    // ---------- create books ----------
+
+    @Test
+    public void should_create_books_and_report_each_result() throws Exception {
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Arrays.asList(
+                        book("123-1234567890", "First book"),
+                        book("978-0321356680", "Existing book"),
+                        book("123-1234567891", "Second book"),
+                        book("123-1234567890", "Duplicated book"),
+                        new Book("123-1234567892", "Book without author", "Publisher")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(5)))
+                .andExpect(jsonPath("$[*].status", contains("CREATED", "CONFLICT", "CREATED", "CONFLICT", "INVALID")))
+                .andExpect(jsonPath("$[1].message", containsString("book already exists for ISBN: '978-0321356680'")))
+                .andExpect(jsonPath("$[4].message", containsString("authors")))
+                .andDo(MockMvcResultHandlers.print());
+
+        assertThat(bookRepository.findByIsbn("123-1234567890").get().getTitle(), is("First book"));
+        assertThat(bookRepository.findByIsbn("123-1234567891").get().getAuthors(), hasSize(1));
+        assertThat(bookRepository.findByIsbn("123-1234567892").isPresent(), is(false));
+        assertThat(bookRepository.count(), is(6L));
+    }
+
+    @Test
+    public void should_create_more_books_than_a_jdbc_batch() throws Exception {
+        final Book[] books = new Book[Book.BATCH_SIZE * 2 + 1];
+        for (int i = 0; i < books.length; i++) {
+            books[i] = book(String.format("123-%010d", i), "Book " + i);
+        }
+
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Arrays.asList(books))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(books.length)));
+
+        assertThat(bookRepository.count(), is(4L + books.length));
+    }
+
+    // ---------- import books ----------
+
+    @Test
+    public void should_report_null_books_as_invalid() throws Exception {
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[null, " + json(book("123-1234567890", "First book")) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].status", contains("INVALID", "CREATED")))
+                .andExpect(jsonPath("$[0].message", is("book may not be null")));
+
+        assertThat(bookRepository.count(), is(5L));
+    }
+
+    @Test
+    public void should_not_create_batch_of_too_many_books() throws Exception {
+        final Book[] books = new Book[1001];
+        Arrays.fill(books, book("123-1234567890", "Book"));
+
+        mockMvc.perform(post("/api/books/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Arrays.asList(books))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].message", is("batch not supported: 1001 books, at most 1000")));
+
+        assertThat(bookRepository.count(), is(4L));
+    }
+
+    @Test
+    public void should_report_book_created_concurrently_as_conflict() {
+        // Given
+        final BookRepository repository = mock(BookRepository.class);
+        final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        final BookBulkController controller = new BookBulkController(repository, mock(BookImporter.class),
+                mock(DescriptionWriteQueue.class), eventPublisher, validator, new ObjectMapper());
+        when(repository.findExistingCanonicalIsbns(anyCollection()))
+                .thenReturn(new HashSet<>())
+                .thenReturn(new HashSet<>(Collections.singletonList(Isbn.canonical("123-1234567891"))));
+        doThrow(new DataIntegrityViolationException("uk_book_isbn")).doNothing()
+                .when(repository).insertAll(anyList());
+
+        // When
+        final List<BatchItemResult> results = controller.createBooks(Arrays.asList(
+                book("123-1234567890", "First book"), book("123-1234567891", "Created meanwhile"))).getBody();
+
+        // Then
+        assertThat(results.get(0).getStatus(), is(BatchItemResult.Status.CREATED));
+        assertThat(results.get(1).getStatus(), is(BatchItemResult.Status.CONFLICT));
+        verify(repository, times(2)).insertAll(anyList());
+        verify(eventPublisher, times(1)).publishEvent(any(BookEvent.class));
+    }
+
+    @Test
+    public void should_import_ndjson_books_in_chunks_and_upsert_existing_ones() throws Exception {
+        final String feed = json(book("123-1234567890", "First book")) + "\n"
+                + "\n"
+                + "{ not json }\n"
+                + json(book("978-0321356680", "Effective Java, Third Edition")) + "\n"
+                + json(new Book("123-1234567891", "Book without author", "Publisher")) + "\n"
+                + json(book("123-1234567892", "Second book")) + "\n";
+
+        mockMvc.perform(post("/api/books/import?onConflict=UPSERT&chunkSize=2")
+                .contentType("application/x-ndjson")
+                .content(feed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read", is(5)))
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.invalid", is(2)))
+                .andExpect(jsonPath("$.errors[0]", is("line 3: malformed JSON")))
+                .andExpect(jsonPath("$.errors[1]", startsWith("line 5: authors")))
+                .andDo(MockMvcResultHandlers.print());
+
+        assertThat(bookRepository.findByIsbn("978-0321356680").get().getTitle(), is("Effective Java, Third Edition"));
+        assertThat(bookRepository.count(), is(6L));
+    }
+
+    @Test
+    public void should_count_book_replaced_within_a_chunk_as_updated_when_upserting() throws Exception {
+        final String feed = json(book("123-1234567890", "First book")) + "\n"
+                + json(book("123-1234567890", "First book, revised")) + "\n";
+
+        mockMvc.perform(post("/api/books/import?onConflict=UPSERT")
+                .contentType("application/x-ndjson")
+                .content(feed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read", is(2)))
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.updated", is(1)))
+                .andExpect(jsonPath("$.skipped", is(0)));
+
+        assertThat(bookRepository.findByIsbn("123-1234567890").get().getTitle(), is("First book, revised"));
+    }
+
+    @Test
+    public void should_import_csv_books_and_skip_existing_ones() throws Exception {
+        final String feed = "isbn,title,publisher,authors,description\r\n"
+                + "123-1234567890,First book,Publisher,John Doe;Jane Doe,\r\n"
+                + "978-0321356680,Effective Java,Publisher,Joshua Bloch,\r\n"
+                + "123-1234567891,\"Second book, with a comma\",Publisher,Mary Ann Smith,\"Multi\nline \"\"description\"\"\"\r\n";
+
+        mockMvc.perform(post("/api/books/import")
+                .contentType("text/csv")
+                .content(feed))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.read", is(3)))
+                .andExpect(jsonPath("$.created", is(2)))
+                .andExpect(jsonPath("$.skipped", is(1)))
+                .andExpect(jsonPath("$.invalid", is(0)))
+                .andDo(MockMvcResultHandlers.print());
+
+        assertThat(bookRepository.findByIsbn("123-1234567890").get().getAuthors(), hasSize(2));
+        final Book book = bookRepository.findByIsbn("123-1234567891").get();
+        assertThat(book.getTitle(), is("Second book, with a comma"));
+        assertThat(book.getDescription(), is("Multi\nline \"description\""));
+        assertThat(book.getAuthors().iterator().next().getFirstName(), is("Mary Ann"));
+        assertThat(bookRepository.findByIsbn("978-0321356680").get().getPublisher(), is("Addison Wesley"));
+    }
+
+    // ---------- export books ----------
+
+    @Test
+    public void should_export_all_books_as_ndjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andDo(MockMvcResultHandlers.print());
+
+        final String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines.length, is(4));
+        assertThat(lines[0], containsString("\"title\":\"Effective Java\""));
+        assertThat(lines[3], containsString("\"lastName\":\"Peierls\""));
+    }
+}
@@ -0,0 +1,113 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.changefeed.BookChangeLog;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * BookChangeController test
+ *
+ * Not transactional: changes are appended once committed, events are published here outside any transaction
+ * and for books which do not exist, so that the catalog is left as is.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class)
+@AutoConfigureMockMvc
+public class BookChangeControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookChangeLog bookChangeLog;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    public void should_poll_changes_after_sequence() throws Exception {
+        final long since = bookChangeLog.lastSequence();
+        eventPublisher.publishEvent(BookEvent.deleted("978-0000000001"));
+        eventPublisher.publishEvent(BookEvent.deleted("978-0000000002"));
+
+        MvcResult result = mockMvc.perform(get("/api/books/changes?since=" + since)
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Last-Sequence", String.valueOf(since + 2)))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].isbn", contains("978-0000000001", "978-0000000002")))
+                .andExpect(jsonPath("$[0].type", is("DELETED")))
+                .andExpect(jsonPath("$[0].sequence", is((int) since + 1)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_wait_for_next_change() throws Exception {
+        final long since = bookChangeLog.lastSequence();
+
+        MvcResult result = mockMvc.perform(get("/api/books/changes?since=" + since + "&wait=5000")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        eventPublisher.publishEvent(BookEvent.deleted("978-0000000003"));
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].isbn", contains("978-0000000003")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_resume_after_unknown_sequence() throws Exception {
+        mockMvc.perform(get("/api/books/changes?since=" + (bookChangeLog.lastSequence() + 1))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isGone())
+                .andExpect(jsonPath("$[0].message", startsWith("sequence not supported: ")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_stream_changes_as_server_sent_events() throws Exception {
+        final long since = bookChangeLog.lastSequence();
+        eventPublisher.publishEvent(BookEvent.deleted("978-0000000004"));
+
+        MvcResult result = mockMvc.perform(get("/api/books/changes?since=" + since)
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // the backlog is sent by another thread
+        for (int i = 0; i < 50 && !result.getResponse().getContentAsString().contains("\n\n"); i++) {
+            Thread.sleep(100);
+        }
+        assertThat(result.getResponse().getContentAsString(),
+                startsWith("id:" + (since + 1) + "\nevent:changes\ndata:[{\"sequence\":" + (since + 1)));
+    }
+}
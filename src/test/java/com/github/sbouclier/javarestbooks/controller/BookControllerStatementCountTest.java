@@ -0,0 +1,139 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * BookController SQL statements count test
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BookControllerStatementCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void should_load_authors_of_all_books_in_one_query() throws Exception {
+        mockMvc.perform(get("/api/books").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[3].authors", hasSize(4)));
+
+        // books page + authors (no count query, the page is not full)
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+    }
+
+    @Test
+    public void should_load_authors_of_a_page_in_one_query() throws Exception {
+        mockMvc.perform(get("/api/books?page=1&size=2").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPartialContent())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        // books page + authors, the total is kept by BookCounter
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+    }
+
+    @Test
+    public void should_load_authors_of_a_cursor_page_in_one_query() throws Exception {
+        mockMvc.perform(get("/api/books?after=&size=3").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPartialContent())
+                .andExpect(jsonPath("$", hasSize(3)));
+
+        // books page + authors
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+    }
+
+    @Test
+    public void should_select_requested_columns_only() throws Exception {
+        mockMvc.perform(get("/api/books?fields=isbn,title").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)));
+
+        // projected books page, neither entities nor authors
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+        assertThat(statistics.getEntityLoadCount(), is(0L));
+        assertThat(statistics.getCollectionLoadCount(), is(0L));
+    }
+
+    @Test
+    public void should_load_requested_authors_of_a_projected_page_in_one_query() throws Exception {
+        mockMvc.perform(get("/api/books?fields=isbn,authors").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[3].authors", hasSize(4)));
+
+        // projected books page + authors
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+        assertThat(statistics.getEntityLoadCount(), is(0L));
+    }
+
+    @Test
+    public void should_write_book_without_reading_it_first() throws Exception {
+        // Given
+        mockMvc.perform(post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"123-1234567890\",\"title\":\"My book\",\"publisher\":\"Publisher\","
+                        + "\"authors\":[{\"firstName\":\"John\",\"lastName\":\"Doe\"}]}"))
+                .andExpect(status().isCreated());
+
+        // no lookup before the insert
+        assertThat(statistics.getQueryExecutionCount(), is(0L));
+        assertThat(statistics.getEntityLoadCount(), is(0L));
+
+        mockMvc.perform(get("/api/books/123-1234567890")).andExpect(status().isOk());
+        statistics.clear();
+
+        // When
+        mockMvc.perform(patch("/api/books/123-1234567890")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("new description"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.description", is("new description")));
+
+        // Then: a conditional update from the cached book
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+
+        statistics.clear();
+        mockMvc.perform(delete("/api/books/123-1234567890")).andExpect(status().isNoContent());
+
+        // authors + book, nothing loaded
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+        assertThat(statistics.getEntityLoadCount(), is(0L));
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.http.converter.json.MappingJackson2HttpMessageConvert
 import org.springframework.mock.http.MockHttpOutputMessage;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,9 +23,11 @@ import java.io.IOException;
 import java.util.Arrays;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.core.Is.is;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -102,6 +105,19 @@ public class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    public void should_not_create_book_with_another_spelling_of_existing_isbn() throws Exception {
+        Book book = new Book("0-321-35668-3","My new book","Publisher");
+        book.addAuthor(new Author("John","Doe"));
+
+        mockMvc.perform(post("/api/books")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(book)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0].message", containsString("book already exists for ISBN: '0-321-35668-3'")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     @Test
     public void should_not_allow_others_http_methods() throws Exception {
         Book book = new Book("123-1234567890","My new book","Publisher");
@@ -128,6 +144,15 @@ public class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    public void should_get_book_by_isbn_10_with_ok_status() throws Exception {
+        mockMvc.perform(get("/api/books/0-321-35668-3").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isbn", is("978-0321356680")))
+                .andExpect(jsonPath("$.isbnKey").doesNotExist())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     @Test
     public void should_no_get_unknown_book_with_not_found_status() throws Exception {
         mockMvc.perform(get("/api/books/000-1234567890").contentType(MediaType.APPLICATION_JSON))
@@ -138,6 +163,62 @@ public class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    public void should_get_book_with_etag() throws Exception {
+        mockMvc.perform(get("/api/books/978-0321356680").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", is("\"1-0\"")))
+                .andExpect(jsonPath("$.version").doesNotExist())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_get_unmodified_book_with_not_modified_status() throws Exception {
+        mockMvc.perform(get("/api/books/978-0321356680")
+                .header("If-None-Match", "\"1-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", is("\"1-0\"")))
+                .andExpect(content().string(""))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_get_unmodified_book_by_another_form_of_isbn_with_not_modified_status() throws Exception {
+        mockMvc.perform(get("/api/books/9780321356680")
+                .header("If-None-Match", "\"1-0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", is("\"1-0\"")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_modified_book_with_ok_status() throws Exception {
+        mockMvc.perform(patch("/api/books/978-0321356680")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("new description"))
+                .andExpect(header().string("ETag", is("\"1-1\"")));
+
+        mockMvc.perform(get("/api/books/978-0321356680")
+                .header("If-None-Match", "\"1-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", is("\"1-1\"")))
+                .andExpect(jsonPath("$.description", is("new description")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_gzipped_book_with_content_length() throws Exception {
+        mockMvc.perform(get("/api/books/978-0321356680").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(header().string("Content-Encoding", is("gzip")))
+                .andExpect(header().string("Vary", is("Accept-Encoding")))
+                .andExpect(header().string("ETag", is("\"1-0\"")))
+                .andExpect(result -> assertThat(result.getResponse().getContentLength(),
+                        is(result.getResponse().getContentAsByteArray().length)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     // ---------- get books ----------
 
     @Test
@@ -199,6 +280,232 @@ public class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    public void should_not_sort_books_on_unindexed_field() throws Exception {
+        mockMvc.perform(get("/api/books?sort=description").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].message", containsString("sort not supported: 'description'")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    // ---------- get books with filters ----------
+
+    @Test
+    public void should_get_books_of_publisher() throws Exception {
+        mockMvc.perform(get("/api/books?publisher=Addison Wesley&size=1").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("X-Total-Count", is("2")))
+                .andExpect(header().string("next", is("/api/books?page=1&size=1&publisher=Addison+Wesley")))
+                .andExpect(jsonPath("$[*].id", contains(1)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_books_of_author() throws Exception {
+        mockMvc.perform(get("/api/books?author=Blosh").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", is("2")))
+                .andExpect(jsonPath("$[*].id", contains(1,4)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_books_by_title_prefix_sorted_by_title() throws Exception {
+        mockMvc.perform(get("/api/books?titlePrefix=Java&sort=title&order=desc").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(4,3)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_combine_filters_with_cursor() throws Exception {
+        mockMvc.perform(get("/api/books?after=&size=1&publisher=Addison Wesley&author=Goetz")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("next"))
+                .andExpect(jsonPath("$[*].id", contains(4)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_get_books_of_unknown_publisher() throws Exception {
+        mockMvc.perform(get("/api/books?publisher=Unknown").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    // ---------- lookup books ----------
+
+    @Test
+    public void should_get_books_by_isbn_in_request_order_with_missing_isbns() throws Exception {
+        mockMvc.perform(get("/api/books?isbn=978-1491900864,000-0000000000,978-0321356680,9781491900864")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[*].id", contains(3, 1)))
+                .andExpect(jsonPath("$.books[0].authors", hasSize(2)))
+                .andExpect(jsonPath("$.missing", contains("000-0000000000")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_lookup_books_by_isbn() throws Exception {
+        mockMvc.perform(post("/api/books/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Arrays.asList("978-0321349606", "978-1617292545", "978-0000000000"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.books[*].isbn", contains("978-0321349606", "978-1617292545")))
+                .andExpect(jsonPath("$.missing", contains("978-0000000000")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_lookup_too_many_books() throws Exception {
+        final String[] isbns = new String[201];
+        for (int i = 0; i < isbns.length; i++) {
+            isbns[i] = String.format("978-%010d", i);
+        }
+        mockMvc.perform(post("/api/books/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(Arrays.asList(isbns))))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].message", is("lookup not supported: 201 ISBNs, at most 200")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_get_unmodified_books_with_not_modified_status() throws Exception {
+        String etag = mockMvc.perform(get("/api/books").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("\"")))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/books").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_books_modified_since_etag() throws Exception {
+        String etag = mockMvc.perform(get("/api/books").contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(delete("/api/books/978-0321356680"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/books").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", is("3")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    // ---------- get books with cursor ----------
+
+    @Test
+    public void should_get_first_cursor_page_without_count() throws Exception {
+        mockMvc.perform(get("/api/books?after=&size=2").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().doesNotExist("X-Total-Count"))
+                .andExpect(header().string("next", startsWith("/api/books?after=")))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[*].id", contains(1,2)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_follow_next_cursor_until_last_page() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/api/books?after=&size=3&sort=title&order=desc"))
+                .andExpect(status().isPartialContent())
+                .andExpect(jsonPath("$[*].id", contains(2,4,3)))
+                .andReturn();
+
+        mockMvc.perform(get(firstPage.getResponse().getHeader("next")).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().doesNotExist("next"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[*].id", contains(1)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_all_books_in_single_cursor_page_with_ok_status() throws Exception {
+        mockMvc.perform(get("/api/books?after=").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("next"))
+                .andExpect(jsonPath("$[*].id", contains(1,2,3,4)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_get_books_for_invalid_cursor() throws Exception {
+        mockMvc.perform(get("/api/books?after=not-a-cursor").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].logref", is("error")))
+                .andExpect(jsonPath("$[0].message", containsString("invalid pagination cursor")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_get_books_for_cursor_on_unsupported_sort() throws Exception {
+        mockMvc.perform(get("/api/books?after=&sort=description").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].message", containsString("sort not supported: 'description'")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    // ---------- get books with fields ----------
+
+    @Test
+    public void should_get_book_with_requested_fields_only() throws Exception {
+        mockMvc.perform(get("/api/books/978-0321356680?fields=title,authors").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", is("\"1-0\"")))
+                .andExpect(jsonPath("$.title", is("Effective Java")))
+                .andExpect(jsonPath("$.authors", hasSize(1)))
+                .andExpect(jsonPath("$.isbn").doesNotExist())
+                .andExpect(jsonPath("$.publisher").doesNotExist())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_books_page_with_requested_fields_only() throws Exception {
+        mockMvc.perform(get("/api/books?page=0&size=2&fields=title,isbn").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("X-Total-Count", is("4")))
+                .andExpect(header().string("next", is("/api/books?page=1&size=2&fields=isbn,title")))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].isbn", is("978-0321356680")))
+                .andExpect(jsonPath("$[0].title", is("Effective Java")))
+                .andExpect(jsonPath("$[0].id").doesNotExist())
+                .andExpect(jsonPath("$[0].description").doesNotExist())
+                .andExpect(jsonPath("$[0].authors").doesNotExist())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_books_cursor_page_with_requested_fields_only() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/api/books?after=&size=3&sort=title&order=desc&fields=isbn,authors"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("next", containsString("&fields=isbn,authors")))
+                .andExpect(jsonPath("$[*].isbn", contains("978-1617292545", "978-0321349606", "978-1491900864")))
+                .andExpect(jsonPath("$[1].authors", hasSize(4)))
+                .andExpect(jsonPath("$[0].title").doesNotExist())
+                .andReturn();
+
+        mockMvc.perform(get(firstPage.getResponse().getHeader("next")).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPartialContent())
+                .andExpect(jsonPath("$[*].isbn", contains("978-0321356680")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_get_books_with_unknown_fields() throws Exception {
+        mockMvc.perform(get("/api/books?fields=isbn,price").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].message", containsString("fields not supported: 'isbn,price'")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     // ---------- update book ----------
 
     @Test
@@ -223,6 +530,20 @@ public class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    public void should_update_book_by_another_form_of_isbn_and_return_ok_status() throws Exception {
+        Book book = new Book("978-0321356680","Book updated","Publisher");
+        book.addAuthor(new Author("John","Doe"));
+
+        mockMvc.perform(put("/api/books/9780321356680")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(book)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.title", is("Book updated")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     @Test
     public void should_not_update_unknown_book_and_return_not_found_status() throws Exception {
         Book book = new Book("978-0321356680","Book updated","Publisher");
@@ -241,6 +562,19 @@ public class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    public void should_not_update_book_to_existing_isbn_and_return_conflict_status() throws Exception {
+        Book book = new Book("978-0321356680","Book updated","Publisher");
+        book.addAuthor(new Author("John","Doe"));
+
+        mockMvc.perform(put("/api/books/978-1617292545")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json(book)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$[0].message", containsString("book already exists for ISBN: '978-0321356680'")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     // ---------- update book's description ----------
 
     @Test
@@ -252,6 +586,7 @@ public class BookControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
                 .andExpect(jsonPath("$.title", is("Effective Java")))
                 .andExpect(jsonPath("$.description", is("new description")))
+                .andExpect(header().string("ETag", is("\"1-1\"")))
                 .andDo(MockMvcResultHandlers.print());
     }
 
@@ -278,6 +613,17 @@ public class BookControllerTest {
                 .andDo(MockMvcResultHandlers.print());
     }
 
+    @Test
+    public void should_delete_book_by_another_form_of_isbn_and_return_no_content_status() throws Exception {
+        mockMvc.perform(delete("/api/books/0-321-35668-3")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/books/978-0321356680"))
+                .andExpect(status().isNotFound())
+                .andDo(MockMvcResultHandlers.print());
+    }
+
     @Test
     public void should_not_delete_unknown_book_and_return_not_found_status() throws Exception {
         mockMvc.perform(delete("/api/books/000-1234567890")
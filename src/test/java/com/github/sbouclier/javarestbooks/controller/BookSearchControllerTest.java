@@ -0,0 +1,86 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.core.Is.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * BookSearchController test
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class)
+@AutoConfigureMockMvc
+@Transactional
+public class BookSearchControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void should_search_books_by_author_and_title_prefix() throws Exception {
+        mockMvc.perform(get("/api/books/search?q=goetz conc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", is("1")))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].title", is("Java Concurrency in Practice")))
+                .andExpect(jsonPath("$[0].authors", hasSize(4)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_search_books_page_with_links() throws Exception {
+        mockMvc.perform(get("/api/books/search?q=java&page=0&size=2"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("X-Total-Count", is("3")))
+                .andExpect(header().string("next", is("/api/books/search?q=java&page=1&size=2")))
+                .andExpect(jsonPath("$[*].isbn", contains("978-0321349606", "978-0321356680")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_facet_counts() throws Exception {
+        mockMvc.perform(get("/api/books/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.publishers[0].publisher", is("Addison Wesley")))
+                .andExpect(jsonPath("$.publishers[0].count", is(2)))
+                .andExpect(jsonPath("$.publishers", hasSize(3)))
+                .andExpect(jsonPath("$.authors[0].firstName", is("Joshua")))
+                .andExpect(jsonPath("$.authors[0].lastName", is("Blosh")))
+                .andExpect(jsonPath("$.authors[0].count", is(2)))
+                .andExpect(jsonPath("$.authors", hasSize(7)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_facet_counts_of_author() throws Exception {
+        mockMvc.perform(get("/api/books/facets?author=Liguori&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authors", hasSize(1)))
+                .andExpect(jsonPath("$.authors[0].firstName", is("Patricia")))
+                .andExpect(jsonPath("$.authors[0].count", is(1)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_not_find_any_book() throws Exception {
+        mockMvc.perform(get("/api/books/search?q=kotlin"))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
+    }
+}
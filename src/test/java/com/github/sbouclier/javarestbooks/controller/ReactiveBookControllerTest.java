@@ -0,0 +1,145 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+/**
+ * ReactiveBookController test, writes are committed so every test leaves the catalog as it found it
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class, properties = "spring.main.web-application-type=reactive")
+public class ReactiveBookControllerTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    private WebTestClient webTestClient;
+
+    @Before
+    public void setup() {
+        webTestClient = WebTestClient.bindToApplicationContext(context).build();
+    }
+
+    @Test
+    public void should_get_existing_book_with_etag() {
+        webTestClient.get().uri("/api/books/978-0321356680").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"1-0\"")
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Effective Java")
+                .jsonPath("$.authors.length()").isEqualTo(1);
+    }
+
+    @Test
+    public void should_not_get_unchanged_book() {
+        webTestClient.get().uri("/api/books/978-0321356680").header("If-None-Match", "\"1-0\"")
+                .exchange()
+                .expectStatus().isNotModified();
+    }
+
+    @Test
+    public void should_no_get_unknown_book_with_not_found_status() {
+        webTestClient.get().uri("/api/books/000-1234567890").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$[0].logref").isEqualTo("error")
+                .jsonPath("$[0].message").isEqualTo("could not find book with ISBN: '000-1234567890'");
+    }
+
+    @Test
+    public void should_get_books_page_with_links() {
+        webTestClient.get().uri("/api/books?page=0&size=2").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(206)
+                .expectHeader().valueEquals("X-Total-Count", "4")
+                .expectHeader().valueEquals("next", "/api/books?page=1&size=2")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].isbn").isEqualTo("978-0321356680");
+    }
+
+    @Test
+    public void should_get_first_page_of_default_size_for_out_of_bounds_paging() {
+        webTestClient.get().uri("/api/books?page=-1&size=0").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Total-Count", "4")
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(4)
+                .jsonPath("$[0].isbn").isEqualTo("978-0321356680");
+    }
+
+    @Test
+    public void should_cap_size_of_cursor_page() {
+        webTestClient.get().uri("/api/books?after=&size=" + Integer.MAX_VALUE).accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(4);
+    }
+
+    @Test
+    public void should_create_then_delete_book() {
+        // Given
+        Book book = new Book("123-1234567890", "My book", "My publisher");
+        book.addAuthor(new Author("John", "Doe"));
+
+        // When
+        webTestClient.post().uri("/api/books").contentType(MediaType.APPLICATION_JSON).syncBody(book)
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueMatches("Location", ".*/api/books/123-1234567890$");
+
+        // Then
+        webTestClient.post().uri("/api/books").contentType(MediaType.APPLICATION_JSON).syncBody(book)
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webTestClient.delete().uri("/api/books/123-1234567890")
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.get().uri("/api/books/123-1234567890")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void should_update_description_of_book_read_outside_a_session() {
+        // Given
+        Book book = new Book("123-1234567891", "My book", "My publisher");
+        book.addAuthor(new Author("John", "Doe"));
+        webTestClient.post().uri("/api/books").contentType(MediaType.APPLICATION_JSON).syncBody(book)
+                .exchange()
+                .expectStatus().isCreated();
+
+        // When
+        webTestClient.patch().uri("/api/books/123-1234567891").contentType(MediaType.TEXT_PLAIN)
+                .syncBody("New description")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("New description")
+                .jsonPath("$.authors.length()").isEqualTo(1);
+
+        // Then
+        webTestClient.get().uri("/api/books/123-1234567891").accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("New description");
+        webTestClient.delete().uri("/api/books/123-1234567891")
+                .exchange()
+                .expectStatus().isNoContent();
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.sbouclier.javarestbooks.controller;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * StatsController test
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class)
+@AutoConfigureMockMvc
+@Transactional
+public class StatsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void should_get_handler_metrics_in_prometheus_format() throws Exception {
+        mockMvc.perform(get("/api/books/978-0321356680")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/books/978-0000000000")).andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/stats/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(startsWith("text/plain")))
+                .andExpect(content().string(containsString("# TYPE books_http_request_seconds histogram")))
+                .andExpect(content().string(containsString(
+                        "books_http_request_seconds_bucket{handler=\"BookController.getBook\",le=\"+Inf\"} ")))
+                .andExpect(content().string(containsString(
+                        "books_http_request_errors_total{handler=\"BookController.getBook\",exception=\"BookNotFoundException\"} ")))
+                .andExpect(content().string(containsString("books_repository_seconds_count{method=\"findByIsbnKey\"} ")))
+                .andExpect(content().string(containsString("books_db_connection_acquire_seconds_count ")))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_get_statements_per_request_of_handlers() throws Exception {
+        mockMvc.perform(get("/api/books?page=0&size=2")).andExpect(status().isPartialContent());
+
+        mockMvc.perform(get("/api/stats/endpoints"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['BookController.getAllBooks'].count", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$['BookController.getAllBooks'].statementsPerRequest", greaterThanOrEqualTo(1.0)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+
+    @Test
+    public void should_count_statements_of_streamed_responses() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/stats/endpoints"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['BookBulkController.exportBooks'].count", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$['BookBulkController.exportBooks'].statementsPerRequest", greaterThanOrEqualTo(1.0)))
+                .andDo(MockMvcResultHandlers.print());
+    }
+}
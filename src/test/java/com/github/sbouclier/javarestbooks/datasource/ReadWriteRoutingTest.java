@@ -0,0 +1,144 @@
+package com.github.sbouclier.javarestbooks.datasource;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.cache.BookCache;
+import com.github.sbouclier.javarestbooks.datasource.ReadWriteRoutingDataSource.Target;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.servlet.http.Cookie;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Read/write routing test, not transactional: a test transaction would keep every statement on the primary.
+ * Only reads and rejected writes are issued, the catalog is left unchanged.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class, properties = {
+        "books.datasource.replica.enabled=true",
+        "books.datasource.replica.max-lag-ms=60000" })
+@AutoConfigureMockMvc
+public class ReadWriteRoutingTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ReadWriteRoutingDataSource routingDataSource;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Test
+    public void should_read_pages_from_replica() throws Exception {
+        // Given
+        final long primary = routingDataSource.getConnectionCount(Target.PRIMARY);
+        final long replica = routingDataSource.getConnectionCount(Target.REPLICA);
+
+        // When
+        mockMvc.perform(get("/api/books?page=0&size=2")).andExpect(status().isPartialContent());
+
+        // Then
+        assertThat(routingDataSource.getConnectionCount(Target.PRIMARY), is(primary));
+        assertThat(routingDataSource.getConnectionCount(Target.REPLICA), greaterThan(replica));
+    }
+
+    @Test
+    public void should_read_from_primary_after_own_write() throws Exception {
+        // Given
+        final long primary = routingDataSource.getConnectionCount(Target.PRIMARY);
+        final long replica = routingDataSource.getConnectionCount(Target.REPLICA);
+        final Cookie lastWrite = new Cookie("books-last-write", String.valueOf(System.currentTimeMillis()));
+
+        // When
+        mockMvc.perform(get("/api/books?page=0&size=2").cookie(lastWrite)).andExpect(status().isPartialContent());
+
+        // Then
+        assertThat(routingDataSource.getConnectionCount(Target.PRIMARY), greaterThan(primary));
+        assertThat(routingDataSource.getConnectionCount(Target.REPLICA), is(replica));
+    }
+
+    @Test
+    public void should_load_cached_books_from_primary() throws Exception {
+        // Given
+        bookCache.evictAll();
+        final long primary = routingDataSource.getConnectionCount(Target.PRIMARY);
+        final long replica = routingDataSource.getConnectionCount(Target.REPLICA);
+
+        // When
+        mockMvc.perform(get("/api/books/978-0321356680")).andExpect(status().isOk());
+
+        // Then
+        assertThat(routingDataSource.getConnectionCount(Target.PRIMARY), greaterThan(primary));
+        assertThat(routingDataSource.getConnectionCount(Target.REPLICA), is(replica));
+    }
+
+    @Test
+    public void should_not_tag_replica_pages_with_catalog_revision() throws Exception {
+        mockMvc.perform(get("/api/books?page=0&size=2"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    public void should_not_mark_client_of_lookup_request() throws Exception {
+        mockMvc.perform(post("/api/books/lookup").contentType(MediaType.APPLICATION_JSON).content("[\"978-0321356680\"]"))
+                .andExpect(status().isOk())
+                .andExpect(cookie().doesNotExist("books-last-write"));
+    }
+
+    @Test
+    public void should_mark_client_of_write_request() throws Exception {
+        mockMvc.perform(patch("/api/books/000-0000000000").contentType(MediaType.APPLICATION_JSON).content("none"))
+                .andExpect(status().isNotFound())
+                .andExpect(cookie().exists("books-last-write"))
+                .andExpect(cookie().maxAge("books-last-write", 60));
+    }
+
+    @Test
+    public void should_not_allow_replica_for_write_request_on_thread_of_previous_read() {
+        // Given
+        final ReplicaReadInterceptor interceptor = new ReplicaReadInterceptor(60000);
+        ReplicaReadContext.allowReplica();
+
+        // When
+        interceptor.preHandle(new MockHttpServletRequest("PUT", "/api/books/978-0321356680"),
+                new MockHttpServletResponse(), null);
+
+        // Then
+        assertThat(ReplicaReadContext.isReplicaAllowed(), is(false));
+    }
+
+    @Test
+    public void should_clear_replica_flag_when_async_request_leaves_thread() {
+        // Given
+        final ReplicaReadInterceptor interceptor = new ReplicaReadInterceptor(60000);
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/export");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(request, response, null);
+        assertThat(ReplicaReadContext.isReplicaAllowed(), is(true));
+
+        // When
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+
+        // Then
+        assertThat(ReplicaReadContext.isReplicaAllowed(), is(false));
+    }
+}
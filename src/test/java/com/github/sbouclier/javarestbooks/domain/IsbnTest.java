@@ -0,0 +1,35 @@
+package com.github.sbouclier.javarestbooks.domain;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Isbn test
+ */
+public class IsbnTest {
+
+    @Test
+    public void should_give_same_key_to_every_form_of_an_isbn() {
+        assertThat(Isbn.toKey("978-0321356680"), is(9780321356680L));
+        assertThat(Isbn.toKey("978 0 321 35668 0"), is(9780321356680L));
+        assertThat(Isbn.toKey("0-321-35668-3"), is(9780321356680L));
+        assertThat(Isbn.toKey("043942089X"), is(9780439420891L));
+    }
+
+    @Test
+    public void should_not_give_key_to_other_texts() {
+        assertThat(Isbn.toKey(null), is(Isbn.NO_KEY));
+        assertThat(Isbn.toKey("978-03213566"), is(Isbn.NO_KEY));
+        assertThat(Isbn.toKey("978-0321356680-1"), is(Isbn.NO_KEY));
+        assertThat(Isbn.toKey("X-321-35668-3"), is(Isbn.NO_KEY));
+        assertThat(Isbn.toKey("ISBN 978-0321356680"), is(Isbn.NO_KEY));
+    }
+
+    @Test
+    public void should_give_canonical_form() {
+        assertThat(Isbn.canonical("0-321-35668-3"), is("9780321356680"));
+        assertThat(Isbn.canonical("not an isbn"), is("not an isbn"));
+    }
+}
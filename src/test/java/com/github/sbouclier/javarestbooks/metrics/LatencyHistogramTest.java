@@ -0,0 +1,55 @@
+package com.github.sbouclier.javarestbooks.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * LatencyHistogram test
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void should_count_values_in_buckets() {
+
+        // Given
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        // When
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(50));
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(700));
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(3));
+        histogram.record(TimeUnit.SECONDS.toNanos(30));
+
+        // Then
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.getCount(), is(4L));
+        assertThat(snapshot.getCumulativeCount(0), is(1L));
+        assertThat(snapshot.getCumulativeCount(4), is(2L));
+        assertThat(snapshot.getCumulativeCount(6), is(3L));
+        assertThat(snapshot.getCumulativeCount(LatencyHistogram.BOUNDS.length), is(4L));
+        assertThat(snapshot.getSumSeconds(), closeTo(30.00375, 1e-9));
+    }
+
+    @Test
+    public void should_estimate_quantiles_within_buckets() {
+
+        // Given
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i < 90 ? 200 : 4000));
+        }
+
+        // When
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        // Then
+        assertThat(snapshot.getQuantileSeconds(0.5), closeTo(0.0001 + 0.00015 * 50 / 90, 1e-9));
+        assertThat(snapshot.getQuantileSeconds(0.99), closeTo(0.0025 + 0.0025 * 9 / 10, 1e-9));
+        assertThat(new LatencyHistogram().snapshot().getQuantileSeconds(0.99), is(0.0));
+    }
+}
@@ -0,0 +1,114 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+
+/**
+ * Query plans of the book list: H2 explains the SQL generated by Hibernate, filters and sorts must use the indexes
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.github.sbouclier.javarestbooks.repository.RecordingStatementInspector")
+@Transactional
+public class BookQueryPlanTest {
+
+    private static final PageRequest FIRST_PAGE = PageRequest.of(0, 20, Sort.by("id"));
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        RecordingStatementInspector.clear();
+    }
+
+    @Test
+    public void should_filter_by_publisher_with_index() {
+        // When
+        bookRepository.findAll(BookFilter.of("Addison Wesley", null, null), FIRST_PAGE);
+
+        // Then
+        final String plan = planOfBooksQuery();
+        assertThat(plan, containsString("IDX_BOOK_PUBLISHER"));
+        assertThat(plan, not(containsString("tableScan")));
+    }
+
+    @Test
+    public void should_filter_by_title_prefix_with_index() {
+        // When
+        bookRepository.findAll(BookFilter.of(null, null, "Java"), FIRST_PAGE, BookFields.parse("isbn,title"));
+
+        // Then
+        final String plan = planOfBooksQuery();
+        assertThat(plan, containsString("IDX_BOOK_TITLE"));
+        assertThat(plan, not(containsString("tableScan")));
+    }
+
+    @Test
+    public void should_filter_by_author_with_index() {
+        // When
+        bookRepository.findAll(BookFilter.of(null, "Blosh", null), FIRST_PAGE);
+
+        // Then
+        final String plan = planOfBooksQuery();
+        assertThat(plan, containsString("IDX_BOOK_AUTHORS_NAME"));
+        assertThat(plan, not(containsString("tableScan")));
+    }
+
+    @Test
+    public void should_sort_by_title_with_index() {
+        // When
+        bookRepository.findAll(BookFilter.NONE, PageRequest.of(1, 2, Sort.by("title", "id")));
+
+        // Then
+        final String plan = planOfBooksQuery();
+        assertThat(plan, containsString("IDX_BOOK_TITLE"));
+        assertThat(plan, containsString("index sorted"));
+    }
+
+    @Test
+    public void should_seek_by_publisher_with_index() {
+        // When
+        bookRepository.findAllAfter(BookFilter.NONE, BookCursor.first("publisher", Sort.Direction.ASC), 3);
+
+        // Then
+        final String plan = planOfBooksQuery();
+        assertThat(plan, containsString("IDX_BOOK_PUBLISHER"));
+        assertThat(plan, containsString("index sorted"));
+    }
+
+    /**
+     * Plan of the first statement reading books, parameters only need a value to be explained
+     */
+    private String planOfBooksQuery() {
+        final List<String> statements = RecordingStatementInspector.statements();
+        assertThat(statements, not(hasSize(0)));
+        final String sql = statements.get(0);
+
+        final Object[] parameters = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        Arrays.fill(parameters, "1");
+        return jdbcTemplate.queryForObject("explain " + sql, String.class, parameters);
+    }
+}
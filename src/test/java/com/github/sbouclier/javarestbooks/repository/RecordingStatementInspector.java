@@ -0,0 +1,31 @@
+package com.github.sbouclier.javarestbooks.repository;
+
+import com.github.sbouclier.javarestbooks.metrics.CountingStatementInspector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statement inspector keeping the SQL prepared by Hibernate, for tests explaining their plans
+ */
+public class RecordingStatementInspector extends CountingStatementInspector {
+
+    private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.add(sql);
+        return super.inspect(sql);
+    }
+
+    public static List<String> statements() {
+        synchronized (STATEMENTS) {
+            return new ArrayList<>(STATEMENTS);
+        }
+    }
+
+    public static void clear() {
+        STATEMENTS.clear();
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.sbouclier.javarestbooks.search;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+/**
+ * BookFacets test
+ */
+public class BookFacetsTest {
+
+    private BookFacets facets;
+
+    @Before
+    public void setUp() {
+        facets = new BookFacets(mock(BookRepository.class));
+        facets.onBookEvent(BookEvent.created(book("978-0321356680", "Joshua", "Bloch", "Addison Wesley")));
+        facets.onBookEvent(BookEvent.created(book("978-1617292545", "Craig", "Walls", "Manning Publications")));
+        facets.onBookEvent(BookEvent.created(book("978-0321349606", "Brian", "Goetz", "Addison Wesley")));
+    }
+
+    private static Book book(String isbn, String firstName, String lastName, String publisher) {
+        Book book = new Book(isbn, "Title", publisher);
+        book.addAuthor(new Author(firstName, lastName));
+        return book;
+    }
+
+    @Test
+    public void should_count_books_per_publisher_most_books_first() {
+        assertThat(publishers(null, 10), contains("Addison Wesley=2", "Manning Publications=1"));
+        assertThat(publishers(null, 1), contains("Addison Wesley=2"));
+        assertThat(publishers("Manning Publications", 10), contains("Manning Publications=1"));
+    }
+
+    @Test
+    public void should_count_books_per_author() {
+        // Given
+        final Book book = book("123-1234567890", "Joshua", "Bloch", "Publisher");
+        book.addAuthor(new Author("Brian", "Goetz"));
+
+        // When
+        facets.onBookEvent(BookEvent.created(book));
+
+        // Then
+        assertThat(authors(null), contains("Joshua Bloch=2", "Brian Goetz=2", "Craig Walls=1"));
+        assertThat(authors("Goetz"), contains("Brian Goetz=2"));
+    }
+
+    @Test
+    public void should_move_counts_on_update_and_take_them_back_on_delete() {
+        // When
+        facets.onBookEvent(BookEvent.updated("978-0321356680",
+                book("978-0321356681", "Joshua", "Bloch", "Manning Publications")));
+        facets.onBookEvent(BookEvent.deleted("978-0321349606"));
+
+        // Then
+        assertThat(publishers(null, 10), contains("Manning Publications=2"));
+        assertThat(authors("Goetz"), is(empty()));
+        assertThat(facets.size(), is(2));
+    }
+
+    @Test
+    public void should_keep_counts_consistent_under_concurrent_writes() throws Exception {
+        // Given
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<?>> writes = new ArrayList<>();
+
+        // When: every thread creates its books, moves them to another publisher and deletes half of them
+        for (int thread = 0; thread < 8; thread++) {
+            final int first = thread * 1000;
+            writes.add(executor.submit(() -> {
+                for (int i = first; i < first + 1000; i++) {
+                    final String isbn = "isbn-" + i;
+                    facets.onBookEvent(BookEvent.created(book(isbn, "Jane", "Doe", "Old")));
+                    facets.onBookEvent(BookEvent.updated(isbn, book(isbn, "Jane", "Doe", "New")));
+                    if (i % 2 == 0) {
+                        facets.onBookEvent(BookEvent.deleted(isbn));
+                    }
+                }
+            }));
+        }
+        for (Future<?> write : writes) {
+            write.get();
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(publishers("New", 10), contains("New=4000"));
+        assertThat(publishers("Old", 10), is(empty()));
+        assertThat(authors("Doe"), contains("Jane Doe=4000"));
+    }
+
+    private List<String> publishers(String publisher, int limit) {
+        return facets.publishers(publisher, limit).stream()
+                .map(count -> count.getKey() + "=" + count.getValue())
+                .collect(Collectors.toList());
+    }
+
+    private List<String> authors(String lastName) {
+        return facets.authors(lastName, 10).stream()
+                .map(count -> count.getKey().getFirstName() + " " + count.getKey().getLastName() + "=" + count.getValue())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,93 @@
+package com.github.sbouclier.javarestbooks.search;
+
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.event.BookEvent;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+/**
+ * BookSearchIndex test
+ */
+public class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new BookSearchIndex(mock(BookRepository.class));
+        index.index(book("978-0321356680", "Effective Java", "Joshua", "Bloch", "Addison Wesley"));
+        index.index(book("978-1617292545", "Spring Boot in Action", "Craig", "Walls", "Manning Publications"));
+        index.index(book("978-0321349606", "Java Concurrency in Practice", "Brian", "Goetz", "Addison Wesley"));
+    }
+
+    private static Book book(String isbn, String title, String firstName, String lastName, String publisher) {
+        Book book = new Book(isbn, title, publisher);
+        book.addAuthor(new Author(firstName, lastName));
+        return book;
+    }
+
+    @Test
+    public void should_tokenize_lower_case_words_without_accents() {
+        assertThat(BookSearchIndex.tokenize("Stéphane's Spring-Boot, 2nd édition"),
+                contains("stephane", "s", "spring", "boot", "2nd", "edition"));
+    }
+
+    @Test
+    public void should_find_books_matching_every_term() {
+        assertThat(index.search("java addison"), contains("978-0321349606", "978-0321356680"));
+        assertThat(index.search("java goetz"), contains("978-0321349606"));
+        assertThat(index.search("java manning"), is(empty()));
+    }
+
+    @Test
+    public void should_rank_title_matches_before_publisher_matches() {
+
+        // Given
+        index.index(book("123-1234567890", "Manning", "John", "Doe", "Publisher"));
+
+        // When / Then
+        assertThat(index.search("manning"), contains("123-1234567890", "978-1617292545"));
+    }
+
+    @Test
+    public void should_match_last_term_as_prefix() {
+        assertThat(index.search("CONC"), contains("978-0321349606"));
+        assertThat(index.search("conc java"), is(empty()));
+    }
+
+    @Test
+    public void should_apply_book_events() {
+
+        // Given
+        final Book book = book("978-0321356680", "Effective Kotlin", "Joshua", "Bloch", "Addison Wesley");
+
+        // When
+        index.onBookEvent(BookEvent.updated("978-0321356680", book));
+        index.onBookEvent(BookEvent.deleted("978-1617292545"));
+
+        // Then
+        assertThat(index.search("kotlin"), contains("978-0321356680"));
+        assertThat(index.search("effective java"), is(empty()));
+        assertThat(index.search("spring"), is(empty()));
+        assertThat(index.size(), is(2));
+    }
+
+    @Test
+    public void should_remove_book_deleted_with_another_form_of_its_isbn() {
+
+        // When
+        index.onBookEvent(BookEvent.deleted("9780321356680"));
+
+        // Then
+        assertThat(index.search("effective"), is(empty()));
+        assertThat(index.size(), is(2));
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.sbouclier.javarestbooks.snapshot;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import com.github.sbouclier.javarestbooks.domain.Author;
+import com.github.sbouclier.javarestbooks.domain.Book;
+import com.github.sbouclier.javarestbooks.dto.SnapshotReport;
+import com.github.sbouclier.javarestbooks.repository.BookRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * CatalogSnapshot test, not transactional: the load replaces the tables with the saved rows
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class)
+public class CatalogSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Autowired
+    private CatalogSnapshot catalogSnapshot;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void should_load_saved_catalog() throws Exception {
+        // Given
+        final Path file = folder.getRoot().toPath().resolve("books.snapshot");
+        final long books = bookRepository.count();
+        final long authors = jdbcTemplate.queryForObject("select count(*) from book_authors", Long.class);
+        final SnapshotReport saved = catalogSnapshot.save(file);
+
+        // When
+        final SnapshotReport loaded = catalogSnapshot.load(file);
+
+        // Then
+        assertThat(saved.getBooks(), is(books));
+        assertThat(saved.getAuthors(), is(authors));
+        assertThat(loaded.getBooks(), is(books));
+        assertThat(loaded.getAuthors(), is(authors));
+        assertThat(loaded.getBytes(), is(saved.getBytes()));
+        assertThat(bookRepository.count(), is(books));
+
+        final Book book = bookRepository.findByIsbn("978-0321356680").get();
+        assertThat(book.getTitle(), is("Effective Java"));
+        assertThat(book.getIsbnKey(), is(9780321356680L));
+        assertThat(book.getAuthors().size(), is(1));
+    }
+
+    @Test
+    public void should_generate_ids_above_loaded_books() throws Exception {
+        // Given
+        final Path file = folder.getRoot().toPath().resolve("books.snapshot");
+        catalogSnapshot.save(file);
+        catalogSnapshot.load(file);
+        final long maxId = jdbcTemplate.queryForObject("select max(id) from book", Long.class);
+
+        // When
+        final Book book = new Book("978-1234567897", "Snapshot", Collections.singleton(new Author("Jane", "Doe")),
+                "Publisher");
+        bookRepository.insert(book);
+
+        // Then
+        try {
+            assertThat(book.getId(), greaterThan(maxId));
+        } finally {
+            bookRepository.deleteByIsbn("978-1234567897");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.sbouclier.javarestbooks.snapshot;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * SnapshotFile test
+ */
+public class SnapshotFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void should_read_written_rows() throws IOException {
+        // Given
+        final Path file = folder.newFile().toPath();
+        try (SnapshotFile.Writer writer = SnapshotFile.write(file)) {
+            writer.book(1, 0, "978-0321356680", 9780321356680L, "Effective Java", null, "Addison Wesley");
+            writer.author("Joshua", "Bloch");
+            writer.book(2, 3, "not an isbn", null, "Café", "Crème brûlée", "Éditions");
+            writer.author("Jean", "Dupont");
+            writer.author("Marie", "Curie");
+        }
+
+        // When
+        final List<String> rows = new ArrayList<>();
+        final long books = SnapshotFile.read(file, new SnapshotFile.Visitor() {
+            @Override
+            public void book(long id, long version, String isbn, Long isbnKey, String title, String description,
+                             String publisher) {
+                rows.add(Arrays.asList(id, version, isbn, isbnKey, title, description, publisher).toString());
+            }
+
+            @Override
+            public void author(long bookId, String firstName, String lastName) {
+                rows.add(Arrays.asList(bookId, firstName, lastName).toString());
+            }
+        });
+
+        // Then
+        assertThat(books, is(2L));
+        assertThat(rows, contains(
+                "[1, 0, 978-0321356680, 9780321356680, Effective Java, null, Addison Wesley]",
+                "[1, Joshua, Bloch]",
+                "[2, 3, not an isbn, null, Café, Crème brûlée, Éditions]",
+                "[2, Jean, Dupont]",
+                "[2, Marie, Curie]"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void should_reject_truncated_snapshot() throws IOException {
+        // Given
+        final Path file = folder.newFile().toPath();
+        try (SnapshotFile.Writer writer = SnapshotFile.write(file)) {
+            writer.book(1, 0, "978-0321356680", 9780321356680L, "Effective Java", null, "Addison Wesley");
+        }
+        final byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        // When
+        SnapshotFile.read(file, new SnapshotFile.Visitor() {
+            @Override
+            public void book(long id, long version, String isbn, Long isbnKey, String title, String description,
+                             String publisher) {
+            }
+
+            @Override
+            public void author(long bookId, String firstName, String lastName) {
+            }
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.sbouclier.javarestbooks.writebehind;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * DescriptionWriteLog test
+ */
+public class DescriptionWriteLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void should_replay_latest_write_of_each_book() throws IOException {
+        // Given
+        final Path file = folder.getRoot().toPath().resolve("description-writes.log");
+        final DescriptionWriteLog log = new DescriptionWriteLog(file, false);
+        log.open();
+        log.append(new PendingDescription(1, "978-0321356680", 0, 2, "second", null));
+        log.append(new PendingDescription(1, "978-0321356680", 0, 1, "first", null));
+        log.append(new PendingDescription(2, "978-1617292545", 4, 1, null, null));
+        log.close();
+
+        // When
+        final Map<Long, PendingDescription> pending = new DescriptionWriteLog(file, false).open();
+
+        // Then
+        assertThat(pending.size(), is(2));
+        assertThat(pending.get(1L).getDescription(), is("second"));
+        assertThat(pending.get(1L).version(), is(2L));
+        assertThat(pending.get(2L).getIsbn(), is("978-1617292545"));
+        assertThat(pending.get(2L).getBaseVersion(), is(4L));
+        assertThat(pending.get(2L).getDescription(), is(nullValue()));
+    }
+
+    @Test
+    public void should_ignore_torn_last_write() throws IOException {
+        // Given
+        final Path file = folder.getRoot().toPath().resolve("description-writes.log");
+        final DescriptionWriteLog log = new DescriptionWriteLog(file, false);
+        log.open();
+        log.append(new PendingDescription(1, "978-0321356680", 0, 1, "first", null));
+        log.close();
+        Files.write(file, new byte[] { 0, 0, 0, 42, 1, 2, 3 }, StandardOpenOption.APPEND);
+
+        // When
+        final Map<Long, PendingDescription> pending = new DescriptionWriteLog(file, false).open();
+
+        // Then
+        assertThat(pending.size(), is(1));
+        assertThat(pending.get(1L).getDescription(), is("first"));
+    }
+
+    @Test
+    public void should_keep_only_rewritten_writes() throws IOException {
+        // Given
+        final Path file = folder.getRoot().toPath().resolve("description-writes.log");
+        final DescriptionWriteLog log = new DescriptionWriteLog(file, false);
+        log.open();
+        log.append(new PendingDescription(1, "978-0321356680", 0, 1, "first", null));
+
+        // When
+        log.rewrite(Collections.emptyList());
+        log.append(new PendingDescription(2, "978-1617292545", 0, 1, "other", null));
+        log.close();
+
+        // Then
+        final Map<Long, PendingDescription> pending = new DescriptionWriteLog(file, false).open();
+        assertThat(pending.size(), is(1));
+        assertThat(pending.get(2L).getDescription(), is("other"));
+    }
+}
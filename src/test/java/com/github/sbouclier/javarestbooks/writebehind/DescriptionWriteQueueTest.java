@@ -0,0 +1,178 @@
+package com.github.sbouclier.javarestbooks.writebehind;
+
+import com.github.sbouclier.javarestbooks.JavaRestBooksApplication;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * DescriptionWriteQueue test, flushes are triggered by the tests only
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@SpringBootTest(classes = JavaRestBooksApplication.class, properties = {
+        "books.write-behind.enabled=true",
+        "books.write-behind.log=target/description-writes-test.log",
+        "books.write-behind.flush-interval-ms=3600000" })
+@AutoConfigureMockMvc
+@Transactional
+public class DescriptionWriteQueueTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DescriptionWriteQueue descriptionWriteQueue;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @After
+    public void tearDown() {
+        descriptionWriteQueue.flush();
+    }
+
+    @Test
+    public void should_accept_coalesced_descriptions_and_write_them_in_one_update() throws Exception {
+        // Given
+        final long batches = descriptionWriteQueue.batchCount();
+        mockMvc.perform(patch("/api/books/978-0321356680").contentType(MediaType.APPLICATION_JSON).content("first"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("ETag", is("\"1-1\"")));
+        mockMvc.perform(patch("/api/books/978-0321356680").contentType(MediaType.APPLICATION_JSON).content("second"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("ETag", is("\"1-2\"")));
+
+        // When
+        mockMvc.perform(get("/api/books/978-0321356680"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", is("\"1-2\"")))
+                .andExpect(jsonPath("$.description", is("second")))
+                .andDo(MockMvcResultHandlers.print());
+        final Map<String, Object> beforeFlush = selectBook(1);
+        descriptionWriteQueue.flush();
+
+        // Then
+        assertThat(beforeFlush.get("description"), is(nullValue()));
+        assertThat(((Number) beforeFlush.get("version")).longValue(), is(0L));
+        final Map<String, Object> afterFlush = selectBook(1);
+        assertThat(afterFlush.get("description"), is("second"));
+        assertThat(((Number) afterFlush.get("version")).longValue(), is(2L));
+        assertThat(descriptionWriteQueue.batchCount(), is(batches + 1));
+        assertThat(descriptionWriteQueue.size(), is(0));
+    }
+
+    @Test
+    public void should_drop_pending_description_of_book_updated_afterwards() throws Exception {
+        // Given
+        mockMvc.perform(patch("/api/books/978-1617292545").contentType(MediaType.APPLICATION_JSON).content("patched"))
+                .andExpect(status().isAccepted());
+
+        // When
+        mockMvc.perform(put("/api/books/978-1617292545")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"isbn\":\"978-1617292545\",\"title\":\"Spring Boot in Action\",\"description\":\"put\","
+                        + "\"authors\":[{\"firstName\":\"Craig\",\"lastName\":\"Walls\"}],"
+                        + "\"publisher\":\"Manning Publications\"}"))
+                .andExpect(status().isOk());
+        descriptionWriteQueue.flush();
+
+        // Then
+        assertThat(selectBook(2).get("description"), is("put"));
+        mockMvc.perform(get("/api/books/978-1617292545"))
+                .andExpect(jsonPath("$.description", is("put")));
+    }
+
+    @Test
+    public void should_overlay_pending_descriptions_on_pages_without_flushing() throws Exception {
+        // Given
+        mockMvc.perform(patch("/api/books/978-1491900864").contentType(MediaType.APPLICATION_JSON).content("listed"))
+                .andExpect(status().isAccepted());
+
+        // When
+        mockMvc.perform(get("/api/books?page=0&size=50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.isbn == '978-1491900864')].description", hasItem("listed")))
+                .andDo(MockMvcResultHandlers.print());
+
+        // Then
+        assertThat(selectBook(3).get("description"), is(nullValue()));
+        assertThat(descriptionWriteQueue.size(), is(1));
+    }
+
+    @Test
+    public void should_overlay_pending_descriptions_on_pages_with_requested_fields() throws Exception {
+        // Given
+        mockMvc.perform(patch("/api/books/978-1491900864").contentType(MediaType.APPLICATION_JSON).content("sparse"))
+                .andExpect(status().isAccepted());
+
+        // When
+        mockMvc.perform(get("/api/books?page=0&size=50&fields=isbn,description"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.isbn == '978-1491900864')].description", hasItem("sparse")))
+                .andDo(MockMvcResultHandlers.print());
+
+        // Then
+        assertThat(selectBook(3).get("description"), is(nullValue()));
+    }
+
+    @Test
+    public void should_overlay_pending_descriptions_on_export() throws Exception {
+        // Given
+        mockMvc.perform(patch("/api/books/978-0321349606").contentType(MediaType.APPLICATION_JSON).content("exported"))
+                .andExpect(status().isAccepted());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/books/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        // Then
+        final String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(Arrays.asList(lines), hasItem(allOf(
+                containsString("\"isbn\":\"978-0321349606\""), containsString("\"description\":\"exported\""))));
+        assertThat(selectBook(4).get("description"), is(nullValue()));
+    }
+
+    @Test
+    public void should_reject_description_too_long_to_be_written() throws Exception {
+        final String description = new String(new char[DescriptionWriteQueue.MAX_DESCRIPTION_LENGTH + 1]).replace('\0', 'a');
+
+        mockMvc.perform(patch("/api/books/978-0321349606").contentType(MediaType.APPLICATION_JSON).content(description))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].message", containsString("description not supported: 256 characters")));
+    }
+
+    private Map<String, Object> selectBook(long id) {
+        return jdbcTemplate.queryForMap("select description, version from book where id = ?", id);
+    }
+}